@@ -37,3 +37,22 @@
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+// Benchmarks live under src/test, tagged "benchmark", and only run through their own task
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+tasks.register<Test>("benchmark") {
+    description = "Runs the benchmarks tagged \"benchmark\" under src/test."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
+}
@@ -2,10 +2,16 @@
 
 import com.myapp.caac.entity.CustomApi;
 import com.myapp.caac.entity.ExportConfigurations;
+import com.myapp.caac.model.ConfigurationSnapshot;
 import com.myapp.caac.response.ConfigurationResponse;
 import com.myapp.caac.response.ConfigurationService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +21,7 @@
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,16 +34,36 @@
 @AllArgsConstructor
 public class ConfigurationController {
 
+    private static final MediaType CONFIGURATION_CONTENT_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
     private final ConfigurationService configurationService;
 
     @GetMapping(value = "configuration/{name}", produces = MediaType.ALL_VALUE)
-    public ResponseEntity<String> getConfiguration(@PathVariable String name) {
+    public ResponseEntity<?> getConfiguration(@PathVariable String name,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         log.info("getConfiguration:{}",name);
         try {
-            Optional<String> optionalConfiguration = configurationService.getConfiguration(name);
+            Optional<ConfigurationSnapshot> optionalConfiguration = configurationService.getConfigurationSnapshot(name);
 
+            // Spring answers If-None-Match / If-Modified-Since with 304 when these validators match,
+            // and serves Range requests for Resource bodies as 206 partial content
             return optionalConfiguration
-                    .map(ResponseEntity::ok)
+                    .<ResponseEntity<?>>map(snapshot -> {
+                        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                                .lastModified(snapshot.getLastModified())
+                                .cacheControl(CacheControl.noCache())
+                                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                                .contentType(CONFIGURATION_CONTENT_TYPE);
+                        if (snapshot.hasGzipVariant() && acceptsGzip(acceptEncoding)) {
+                            return builder
+                                    .eTag(snapshot.getContentHash() + "-gzip")
+                                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                                    .body(toGzipResource(snapshot));
+                        }
+                        return builder
+                                .eTag(snapshot.getContentHash())
+                                .body(toResource(snapshot));
+                    })
                     .orElseGet(() -> ResponseEntity.badRequest().body("Invalid configuration type or error"));
         } catch (Exception e) {
             log.error("Error fetching configuration for name: {}. Message: {}", name, e.getMessage());
@@ -44,6 +71,33 @@ public ResponseEntity<String> getConfiguration(@PathVariable String name) {
         }
     }
 
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private Resource toResource(ConfigurationSnapshot snapshot) {
+        if (snapshot.isStreamed()) {
+            return new FileSystemResource(snapshot.getPath());
+        }
+        return new ByteArrayResource(snapshot.getContent());
+    }
+
+    private Resource toGzipResource(ConfigurationSnapshot snapshot) {
+        if (snapshot.getGzipPath() != null) {
+            return new FileSystemResource(snapshot.getGzipPath());
+        }
+        return new ByteArrayResource(snapshot.getGzipContent());
+    }
+
     @PostMapping(value = "configuration/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ConfigurationResponse> saveConfiguration(@PathVariable String name, @RequestParam("file") MultipartFile file) {
         log.info("saveConfiguration:{}",name);
@@ -60,6 +114,16 @@ public ResponseEntity<ConfigurationResponse> saveConfiguration(@PathVariable Str
         }
     }
 
+    @GetMapping("/cache/configuration")
+    public ResponseEntity<Map<String, Object>> getConfigurationCacheStats() {
+        return ResponseEntity.ok(configurationService.getConfigurationCacheStats());
+    }
+
+    @GetMapping("/cache/validation")
+    public ResponseEntity<Map<String, Object>> getValidationCacheStats() {
+        return ResponseEntity.ok(configurationService.getValidationCacheStats());
+    }
+
     @GetMapping("/apis")
     public ResponseEntity<List<CustomApi>> getApis() {
         List<CustomApi> apiList = getCustomApis();
@@ -101,27 +165,12 @@ public ResponseEntity<Map<String, String>> saveExportConfiguration(
         ExportConfigurations exportConfigurations = new ExportConfigurations();
         exportConfigurations.setName(name);
         exportConfigurations.setApiList(apiList);
-        List<ExportConfigurations> exportConfigurationsList = new ArrayList<>(configurationService.loadExportConfigurations());
-
-        upsertConfiguration(exportConfigurationsList, exportConfigurations);
-
-        configurationService.updateAndSaveExportConfigurations(exportConfigurationsList);
+        configurationService.saveExportConfiguration(exportConfigurations);
 
         responseMap.put("status", "success");
         responseMap.put("message", "Export configuration saved successfully!");
         return ResponseEntity.ok(responseMap);
     }
-    private void upsertConfiguration(List<ExportConfigurations> configurationsList,
-                                     ExportConfigurations newConfig) {
-        configurationsList.stream()
-                .filter(config -> config.getName().equals(newConfig.getName()))
-                .findFirst()
-                .ifPresentOrElse(
-                        existingConfig -> existingConfig.setApiList(newConfig.getApiList()),
-                        () -> configurationsList.add(newConfig)
-                );
-    }
-
     private String getErrorMessages(BindingResult result) {
         return result.getFieldErrors().stream()
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
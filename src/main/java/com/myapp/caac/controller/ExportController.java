@@ -1,79 +1,186 @@
 package com.myapp.caac.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.myapp.caac.model.ApplicationMetaData;
-import com.myapp.caac.model.RootMetadata;
+import com.myapp.caac.model.ExportBundle;
+import com.myapp.caac.model.ExportJob;
+import com.myapp.caac.service.BundleCache;
+import com.myapp.caac.service.ExportJobService;
 import com.myapp.caac.service.ExportService;
+import com.myapp.caac.util.CompressionPolicy;
 import com.myapp.caac.util.ZipFileCreator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-@CrossOrigin
+@CrossOrigin(exposedHeaders = "X-Bundle-Version")
 @RestController
 @Slf4j
 public class ExportController {
 
+    private static final String BUNDLE_VERSION_HEADER = "X-Bundle-Version";
+
     @Autowired
     private ExportService exportService;
     @Autowired
     private ZipFileCreator zipFileCreator;
+    @Autowired
+    private BundleCache bundleCache;
+    @Autowired
+    private ExportJobService exportJobService;
 
     @GetMapping("/convert-to-bundle")
-    public ResponseEntity<FileSystemResource> convertPropertiesToJson(@RequestParam("ids") String[] ids) throws IOException {
+    public ResponseEntity<?> convertPropertiesToJson(@RequestParam("ids") String[] ids,
+                                                     @RequestParam(value = "compression", defaultValue = "default") String compression,
+                                                     @RequestParam(value = "since", required = false) String since) throws IOException {
 
-        Map<String, String> filesToZip = new HashMap<>();
+        // fast, small, store or default; unknown values are rejected before any work is done
+        CompressionPolicy policy = zipFileCreator.policy(compression);
+        Long sinceVersion = parseSince(since);
+        ExportBundle bundle = exportService.buildBundle(ids, sinceVersion);
+        String cacheKey = bundle.getCacheKey() + "-" + policy.getProfile().getId();
 
-        for (String id : ids) {
-            if (id.equals("api")) {
-                filesToZip.put("api.json", "api_metadata.json");
-            } else {
-                filesToZip.put(id + ".yaml", id + "_metadata.json");
-            }
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(BUNDLE_VERSION_HEADER, String.valueOf(bundle.getVersion()));
+        if (sinceVersion != null && bundle.getApplicationCount() == 0) {
+            log.info("Nothing changed since {}", since);
+            return ResponseEntity.noContent().headers(headers).build();
         }
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bundle.zip");
 
-        String zipFileName = "bundle.zip"; // Name of the output ZIP file
+        // Same ids and same configuration versions produce the same bundle, so it is served as built before
+        Optional<FileChannel> cachedBundle = bundleCache.open(cacheKey);
+        if (cachedBundle.isPresent()) {
+            log.info("Serving cached bundle {}", cacheKey);
+            return serve(cachedBundle.get(), headers);
+        }
 
-        RootMetadata rootMetadata = exportService.setRootMetadata(filesToZip);
+        // Metadata is serialized in memory and files are copied straight into the response stream. A streamed file
+        // saved over after the key was built still reaches the client, but is not cached under the old content's key.
+        StreamingResponseBody body = outputStream -> bundleCache.writeThrough(cacheKey, outputStream, out -> {
+            AtomicBoolean matchesKey = new AtomicBoolean(true);
+            zipFileCreator.writeZip(bundle.getEntries(), policy, out, (entry, size, sha256) -> {
+                if (!bundle.matchesKey(entry.getName(), sha256)) {
+                    matchesKey.set(false);
+                }
+            });
+            return matchesKey.get();
+        });
 
-        // Create an ObjectMapper instance from Jackson
-        ObjectMapper objectMapper = new ObjectMapper();
+        return ResponseEntity
+                .ok()
+                .headers(headers)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
 
-        for (Map.Entry<String, String> file : filesToZip.entrySet()) {
-            ApplicationMetaData metadata = exportService.setRootMetadata();
-            metadata.setConfigurationFileName(file.getKey());
-            objectMapper.writeValue(new File(file.getValue()), metadata);
-        }
+    }
 
-        // Serialize the POJO to a JSON file
-        objectMapper.writeValue(new File("root_metadata.json"), rootMetadata);
-        Path zipFile = zipFileCreator.createZipFile(filesToZip, zipFileName);
+    // Same parameters as /convert-to-bundle, but the bundle is built in the background and downloaded later
+    @PostMapping("/api/v1/export-jobs")
+    public ResponseEntity<Map<String, Object>> submitExportJob(@RequestParam("ids") String[] ids,
+                                                               @RequestParam(value = "compression", defaultValue = "default") String compression,
+                                                               @RequestParam(value = "since", required = false) String since) {
+        ExportJob job = exportJobService.submit(ids, compression, parseSince(since));
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/v1/export-jobs/" + job.getId()))
+                .body(job.toStatus());
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bundle.zip");
+    @GetMapping("/api/v1/export-jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getExportJob(@PathVariable String jobId) {
+        return exportJobService.get(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        long contentLength = Files.size(zipFile);
+    @GetMapping("/api/v1/export-jobs/{jobId}/bundle")
+    public ResponseEntity<?> downloadExportJob(@PathVariable String jobId) throws IOException {
+        Optional<ExportJob> found = exportJobService.get(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ExportJob job = found.get();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(BUNDLE_VERSION_HEADER, String.valueOf(job.getVersion()));
+        switch (job.getStatus()) {
+            case COMPLETED:
+                FileChannel channel;
+                try {
+                    channel = FileChannel.open(job.getBundlePath(), StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+                    // Expired and purged after it was looked up
+                    return ResponseEntity.notFound().build();
+                }
+                headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bundle.zip");
+                return serve(channel, headers);
+            case NO_CHANGES:
+                return ResponseEntity.noContent().headers(headers).build();
+            default:
+                // Still queued or running, or failed; the body says which
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toStatus());
+        }
+    }
 
+    // Streams from a channel opened up front, so the file may be deleted meanwhile without cutting the body short
+    private static ResponseEntity<StreamingResponseBody> serve(FileChannel channel, HttpHeaders headers) throws IOException {
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (InputStream in = Channels.newInputStream(channel)) {
+                in.transferTo(outputStream);
+            }
+        };
         return ResponseEntity
                 .ok()
                 .headers(headers)
-                .contentLength(contentLength)
+                .contentLength(size)
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(new FileSystemResource(zipFile.toFile()));
+                .body(body);
+    }
+
+    // Accepts a version token from X-Bundle-Version (epoch millis) or an ISO-8601 instant
+    private static Long parseSince(String since) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        try {
+            return since.chars().allMatch(Character::isDigit)
+                    ? Long.parseLong(since)
+                    : Instant.parse(since).toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid since: " + since);
+        }
+    }
 
+    @GetMapping("/api/v1/cache/bundle")
+    public ResponseEntity<Map<String, Object>> getBundleCacheStats() {
+        return ResponseEntity.ok(bundleCache.stats());
     }
 }
@@ -1,19 +1,28 @@
 package com.myapp.caac.controller;
 
+import com.myapp.caac.enums.ImportMode;
+import com.myapp.caac.model.ImportProgress;
+import com.myapp.caac.service.ImportProgressService;
 import com.myapp.caac.service.ImportService;
+import com.myapp.caac.service.resource.GenerationService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @AllArgsConstructor
@@ -22,13 +31,37 @@
 public class ImportController {
 
     private final ImportService importService;
+    private final GenerationService generationService;
+    private final ImportProgressService importProgressService;
 
     @PostMapping(value = "api/import")
-    public ResponseEntity<Map<String, String>> importConfigs(@RequestParam("file") MultipartFile zipFile) throws IOException {
+    public ResponseEntity<Map<String, ?>> importConfigs(@RequestParam("file") MultipartFile zipFile,
+                                                        @RequestParam(value = "mode", defaultValue = "extract") String mode,
+                                                        @RequestParam(value = "importId", required = false) String importId) throws IOException {
+        ImportMode importMode = ImportMode.fromString(mode);
         if (zipFile.isEmpty()) {
             log.info("zip file is empty");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("status", "empty zip file"));
         }
-        return ResponseEntity.status(HttpStatus.OK).body(Collections.singletonMap("status", importService.importConfigs(zipFile)));
+        ImportProgress progress = importProgressService.begin(importId);
+        Map<String, Object> response = importService.importConfigs(zipFile, importMode, progress).toResponse();
+        response.put("importId", progress.getId());
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    // Subscribe with the importId later passed to api/import to follow that import from the upload onwards
+    @GetMapping(value = "api/import/{importId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter importEvents(@PathVariable String importId) {
+        return importProgressService.subscribe(importId);
+    }
+
+    // Publishes the generation that was current before the last import again
+    @PostMapping(value = "api/import/rollback")
+    public ResponseEntity<Map<String, String>> rollback() throws IOException {
+        Optional<String> generation = generationService.rollback();
+        if (generation.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Collections.singletonMap("status", "no earlier generation"));
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(Collections.singletonMap("status", "Rolled back to " + generation.get()));
     }
 }
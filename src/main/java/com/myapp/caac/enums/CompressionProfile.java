@@ -0,0 +1,36 @@
+package com.myapp.caac.enums;
+
+import java.util.zip.Deflater;
+
+public enum CompressionProfile {
+    DEFAULT("default", Deflater.DEFAULT_COMPRESSION),
+    FAST("fast", Deflater.BEST_SPEED),
+    SMALL("small", Deflater.BEST_COMPRESSION),
+    // Every entry is stored uncompressed
+    STORE("store", Deflater.NO_COMPRESSION);
+
+    private final String id;
+    private final int level;
+
+    CompressionProfile(String id, int level) {
+        this.id = id;
+        this.level = level;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public static CompressionProfile fromString(String profile) {
+        for (CompressionProfile value : CompressionProfile.values()) {
+            if (value.id.equalsIgnoreCase(profile)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid compression profile: " + profile);
+    }
+}
@@ -0,0 +1,29 @@
+package com.myapp.caac.enums;
+
+public enum ImportMode {
+    // Extracts the whole bundle to a working directory first
+    EXTRACT("extract"),
+    // Single pass over the upload, configuration files staged next to their destination
+    STREAM("stream"),
+    // Upload spooled to one temp file and read by name; entries nothing refers to are never inflated
+    RANDOM_ACCESS("random-access");
+
+    private final String id;
+
+    ImportMode(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static ImportMode fromString(String mode) {
+        for (ImportMode value : ImportMode.values()) {
+            if (value.id.equalsIgnoreCase(mode)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid import mode: " + mode);
+    }
+}
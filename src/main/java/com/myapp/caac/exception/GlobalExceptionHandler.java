@@ -7,6 +7,8 @@
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -15,6 +17,11 @@ public ResponseEntity<ConfigurationResponse> handleIllegalArgumentException(Ille
         return ResponseEntity.badRequest().body(new ConfigurationResponse("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ConfigurationResponse> handleRejectedExecutionException(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ConfigurationResponse("error", "Too many jobs in progress, try again later."));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ConfigurationResponse> handleGeneralException(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ConfigurationResponse("error", "An unexpected error occurred."));
@@ -0,0 +1,21 @@
+package com.myapp.caac.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Written as the last bundle entry, listing every other entry in bundle order
+@NoArgsConstructor
+@Data
+public class BundleManifest {
+
+    public static final String FILE_NAME = "manifest.json";
+
+    private String algorithm = "SHA-256";
+    private List<ManifestEntry> entries;
+
+    public BundleManifest(List<ManifestEntry> entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,55 @@
+package com.myapp.caac.model;
+
+import com.myapp.caac.util.ContentHash;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+public class ConfigurationSnapshot {
+
+    private final Path path;
+    // null when the file is too large to hold in memory and is streamed from path instead
+    private final byte[] content;
+    private final long contentLength;
+    private final long lastModified;
+    // SHA-256 of content, computed once per version and used as the strong ETag
+    private final String contentHash;
+    // Pre-compressed variant, held in memory or on disk alongside a streamed file; both null if gzip does not pay off
+    private final byte[] gzipContent;
+    private final Path gzipPath;
+
+    private ConfigurationSnapshot(Path path, byte[] content, long contentLength, long lastModified, String contentHash,
+                                  byte[] gzipContent, Path gzipPath) {
+        this.path = path;
+        this.content = content;
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.gzipContent = gzipContent;
+        this.gzipPath = gzipPath;
+    }
+
+    public static ConfigurationSnapshot inMemory(Path path, byte[] content, long lastModified, byte[] gzipContent) {
+        return new ConfigurationSnapshot(path, content, content.length, lastModified, ContentHash.sha256Hex(content),
+                gzipContent, null);
+    }
+
+    public static ConfigurationSnapshot streamed(Path path, long contentLength, long lastModified, String contentHash,
+                                                 Path gzipPath) {
+        return new ConfigurationSnapshot(path, null, contentLength, lastModified, contentHash, null, gzipPath);
+    }
+
+    public boolean isStreamed() {
+        return content == null;
+    }
+
+    public boolean hasGzipVariant() {
+        return gzipContent != null || gzipPath != null;
+    }
+
+    public long getCachedBytes() {
+        long cachedBytes = isStreamed() ? 0 : content.length;
+        return gzipContent == null ? cachedBytes : cachedBytes + gzipContent.length;
+    }
+}
@@ -0,0 +1,25 @@
+package com.myapp.caac.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Validation outcome of one configuration file in an import bundle
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class EntryValidation {
+
+    public enum Status {
+        VALID, INVALID, ERROR,
+        // No validator is known for the file, it is imported as is
+        UNCHECKED,
+        // Not validated because another entry had already failed
+        CANCELLED
+    }
+
+    private String name;
+    private String type;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,35 @@
+package com.myapp.caac.model;
+
+import com.myapp.caac.util.BundleEntry;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public class ExportBundle {
+
+    private final List<BundleEntry> entries;
+    // Identifies the bundle content: requested ids plus the content hash of every included configuration
+    private final String cacheKey;
+    private final int applicationCount;
+    // Latest change time of the requested configurations, in epoch millis; clients pass it back as since
+    private final long version;
+    // SHA-256 each configuration was keyed under; streamed files are only read when written and may have changed since
+    private final Map<String, String> contentHashes;
+
+    public ExportBundle(List<BundleEntry> entries, String cacheKey, int applicationCount, long version,
+                        Map<String, String> contentHashes) {
+        this.entries = entries;
+        this.cacheKey = cacheKey;
+        this.applicationCount = applicationCount;
+        this.version = version;
+        this.contentHashes = contentHashes;
+    }
+
+    // Whether an entry was written with the content the cache key names; entries not in the key always match
+    public boolean matchesKey(String name, String sha256) {
+        String keyed = contentHashes.get(name);
+        return keyed == null || keyed.equals(sha256);
+    }
+}
@@ -0,0 +1,122 @@
+package com.myapp.caac.model;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress fields are written by the job thread and read by status requests, hence volatile/atomic
+@Getter
+public class ExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, NO_CHANGES, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == NO_CHANGES || this == FAILED;
+        }
+    }
+
+    private final String id;
+    private final List<String> ids;
+    private final String compression;
+    private final Long since;
+    private final long submittedAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int entriesTotal;
+    private final AtomicInteger entriesDone = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile long version;
+    private volatile long finishedAt;
+    private volatile String error;
+    private volatile Path bundlePath;
+
+    public ExportJob(String id, List<String> ids, String compression, Long since) {
+        this.id = id;
+        this.ids = ids;
+        this.compression = compression;
+        this.since = since;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public void start(int entriesTotal, long version) {
+        this.entriesTotal = entriesTotal;
+        this.version = version;
+        this.status = Status.RUNNING;
+    }
+
+    public void entryWritten() {
+        entriesDone.incrementAndGet();
+    }
+
+    public void complete(Path bundlePath) {
+        this.bundlePath = bundlePath;
+        finish(Status.COMPLETED);
+    }
+
+    public void completeWithoutChanges(long version) {
+        this.version = version;
+        finish(Status.NO_CHANGES);
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    // Counts what goes through it into bytesWritten
+    public OutputStream track(OutputStream out) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesWritten.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                bytesWritten.addAndGet(length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+
+    public Map<String, Object> toStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("status", this.status.name());
+        status.put("ids", ids);
+        status.put("compression", compression);
+        status.put("since", since);
+        status.put("entriesDone", entriesDone.get());
+        status.put("entriesTotal", entriesTotal);
+        status.put("bytesWritten", bytesWritten.get());
+        status.put("version", version);
+        status.put("submittedAt", submittedAt);
+        status.put("finishedAt", finishedAt == 0 ? null : finishedAt);
+        status.put("error", error);
+        return status;
+    }
+
+    private void finish(Status status) {
+        this.finishedAt = System.currentTimeMillis();
+        this.status = status;
+    }
+}
@@ -0,0 +1,118 @@
+package com.myapp.caac.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Written by the importing thread, read by the thread publishing progress events. Recording never blocks on
+// subscribers: it only appends under this object's lock and signals onChange, which is expected to return at once.
+public class ImportProgress {
+
+    public enum Stage {
+        UPLOAD_RECEIVED, METADATA_PARSED, ENTRIES_VALIDATED, APPLIED, FINISHED
+    }
+
+    private final String id;
+    private final long createdAt;
+    private final Runnable onChange;
+    // Bumped on every change so publishers can tell whether there is anything new to send
+    private final AtomicLong version = new AtomicLong();
+    private final List<Map<String, Object>> stages = new ArrayList<>();
+
+    private volatile long startedAt;
+    private volatile long stageStartedAt;
+    private volatile ImportResult result;
+    private volatile long finishedAt;
+
+    public ImportProgress(String id, Runnable onChange) {
+        this.id = id;
+        this.createdAt = System.currentTimeMillis();
+        this.onChange = onChange;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public ImportResult getResult() {
+        return result;
+    }
+
+    public boolean isStarted() {
+        return startedAt != 0;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    public ImportResult start(long uploadBytes) {
+        startedAt = System.currentTimeMillis();
+        stageStartedAt = startedAt;
+        result = new ImportResult(this::changed);
+        stage(Stage.UPLOAD_RECEIVED, 0, uploadBytes);
+        return result;
+    }
+
+    // durationMs is the time spent since the previous stage, elapsedMs the time since the upload was received
+    public void stage(Stage stage, int entries, long bytes) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("stage", stage.name());
+        event.put("entries", entries);
+        event.put("bytes", bytes);
+        event.put("durationMs", now - stageStartedAt);
+        event.put("elapsedMs", now - startedAt);
+        stageStartedAt = now;
+        synchronized (this) {
+            stages.add(event);
+        }
+        changed();
+    }
+
+    public void finish() {
+        stage(Stage.FINISHED, result.getApplied() + result.getSkipped() + result.getFailed(), result.getBytesApplied());
+        finishedAt = System.currentTimeMillis();
+        changed();
+    }
+
+    public synchronized List<Map<String, Object>> stagesFrom(int index) {
+        return index >= stages.size() ? List.of() : List.copyOf(stages.subList(index, stages.size()));
+    }
+
+    public synchronized int stageCount() {
+        return stages.size();
+    }
+
+    public Map<String, Object> toProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        ImportResult result = this.result;
+        progress.put("id", id);
+        progress.put("applied", result == null ? 0 : result.getApplied());
+        progress.put("skipped", result == null ? 0 : result.getSkipped());
+        progress.put("failed", result == null ? 0 : result.getFailed());
+        progress.put("bytesApplied", result == null ? 0 : result.getBytesApplied());
+        long until = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+        progress.put("elapsedMs", startedAt == 0 ? 0 : until - startedAt);
+        return progress;
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        onChange.run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.myapp.caac.model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts configuration files per outcome; applications of one executionSeq level record concurrently
+public class ImportResult {
+
+    private final AtomicInteger applied = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong bytesApplied = new AtomicLong();
+    // Told about every recorded outcome, on the importing thread
+    private final Runnable onChange;
+    private volatile boolean successful;
+    // Set when the bundle was rejected before anything was applied
+    private volatile List<EntryValidation> validation;
+
+    public ImportResult() {
+        this(() -> {
+        });
+    }
+
+    public ImportResult(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    public void applied(long bytes) {
+        applied.incrementAndGet();
+        bytesApplied.addAndGet(bytes);
+        onChange.run();
+    }
+
+    // Identical to the deployed content, so left untouched
+    public void skipped() {
+        skipped.incrementAndGet();
+        onChange.run();
+    }
+
+    public void failed() {
+        failed.incrementAndGet();
+        onChange.run();
+    }
+
+    public ImportResult rejected(List<EntryValidation> validation) {
+        this.validation = validation;
+        this.successful = false;
+        return this;
+    }
+
+    public ImportResult complete(boolean successful) {
+        this.successful = successful;
+        return this;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public int getApplied() {
+        return applied.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public long getBytesApplied() {
+        return bytesApplied.get();
+    }
+
+    public Map<String, Object> toResponse() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (validation != null) {
+            response.put("status", "Validation failed");
+            response.put("validation", validation);
+            return response;
+        }
+        response.put("status", successful ? "Imported successfully" : "Import unsuccessfully");
+        response.put("applied", getApplied());
+        response.put("skipped", getSkipped());
+        response.put("failed", getFailed());
+        return response;
+    }
+}
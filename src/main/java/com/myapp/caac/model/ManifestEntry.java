@@ -0,0 +1,15 @@
+package com.myapp.caac.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ManifestEntry {
+
+    private String name;
+    private long size;
+    private String sha256;
+}
@@ -0,0 +1,243 @@
+package com.myapp.caac.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.entity.ExportConfigurations;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Repository
+@Slf4j
+public class ExportConfigurationsRepository {
+
+    private static final String SNAPSHOT_FILE = "exportConfigurations.json";
+    private static final String JOURNAL_FILE = "exportConfigurations.journal";
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final ObjectMapper objectMapper;
+    private final int compactAfter;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "export-presets-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Presets by name in display order; only touched while holding this repository's lock
+    private final Map<String, ExportConfigurations> presetsByName = new LinkedHashMap<>();
+    // Immutable view published after every change, so reads never lock or touch disk
+    private volatile List<ExportConfigurations> presets = List.of();
+    private int journalEntries;
+    private boolean compactionScheduled;
+    // Serializes compactions, which write the snapshot without holding this repository's lock
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    @Autowired
+    public ExportConfigurationsRepository(ObjectMapper objectMapper,
+                                          @Value("${export.presets.compact-after:50}") int compactAfter) {
+        this(Paths.get("src", "main", "resources"), objectMapper, compactAfter);
+    }
+
+    ExportConfigurationsRepository(Path resourceDirectory, ObjectMapper objectMapper, int compactAfter) {
+        this.snapshotPath = resourceDirectory.resolve(SNAPSHOT_FILE);
+        this.journalPath = resourceDirectory.resolve(JOURNAL_FILE);
+        this.objectMapper = objectMapper;
+        this.compactAfter = compactAfter;
+    }
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        if (Files.isReadable(snapshotPath)) {
+            List<ExportConfigurations> snapshot = objectMapper.readValue(snapshotPath.toFile(),
+                    new TypeReference<List<ExportConfigurations>>() {
+                    });
+            snapshot.forEach(preset -> presetsByName.put(preset.getName(), preset));
+        } else {
+            log.warn("File not found or not readable: {}", snapshotPath);
+        }
+
+        // Upserts are idempotent, so replaying a journal already folded into the snapshot is harmless
+        if (Files.exists(journalPath)) {
+            truncateTornEntry();
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        ExportConfigurations preset = objectMapper.readValue(line, ExportConfigurations.class);
+                        presetsByName.put(preset.getName(), preset);
+                        journalEntries++;
+                    } catch (IOException e) {
+                        // Torn appends are cut off above, so this is a damaged line that still ends in a newline
+                        log.warn("Skipping unreadable export preset journal entry: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+        publish();
+        log.info("Loaded {} export presets ({} journal entries)", presets.size(), journalEntries);
+    }
+
+    public List<ExportConfigurations> findAll() {
+        return presets;
+    }
+
+    public synchronized void upsert(ExportConfigurations preset) throws IOException {
+        byte[] entry = (objectMapper.writeValueAsString(preset) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel journal = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(entry);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+        }
+        log.info("Saved export preset {} to journal {}", preset.getName(), journalPath.toAbsolutePath());
+
+        presetsByName.put(preset.getName(), preset);
+        publish();
+
+        if (++journalEntries >= compactAfter && !compactionScheduled) {
+            compactionScheduled = true;
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    // Folds the journal into a fresh snapshot; the snapshot is replaced atomically before the journal is trimmed.
+    // Only copying the presets and trimming hold this repository's lock, so upserts go on while the snapshot is
+    // written, and what they journal meanwhile is kept.
+    public void compact() throws IOException {
+        compactionLock.lock();
+        try {
+            List<ExportConfigurations> snapshot;
+            long foldedBytes;
+            int foldedEntries;
+            synchronized (this) {
+                compactionScheduled = false;
+                if (journalEntries == 0) {
+                    return;
+                }
+                snapshot = presets;
+                foldedBytes = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+                foldedEntries = journalEntries;
+            }
+            Path tempFile = Files.createTempFile(snapshotPath.getParent(), SNAPSHOT_FILE, ".tmp");
+            try {
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), snapshot);
+                Files.move(tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            synchronized (this) {
+                dropJournalPrefix(foldedBytes);
+                journalEntries -= foldedEntries;
+            }
+            log.info("Compacted {} export preset journal entries into {}", foldedEntries, snapshotPath.toAbsolutePath());
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        compactor.shutdown();
+        compactor.awaitTermination(10, TimeUnit.SECONDS);
+        compactQuietly();
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            log.error("Error compacting export preset journal", e);
+        }
+    }
+
+    // Keeps only what was appended after the first foldedBytes, which are already in the snapshot; the rest is
+    // rewritten atomically so a crash leaves either journal, and replaying the old one is harmless
+    private void dropJournalPrefix(long foldedBytes) throws IOException {
+        long size = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+        if (size <= foldedBytes) {
+            Files.deleteIfExists(journalPath);
+            return;
+        }
+        Path tempFile = Files.createTempFile(journalPath.getParent(), JOURNAL_FILE, ".tmp");
+        try {
+            try (FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.READ);
+                 FileChannel rest = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                long position = foldedBytes;
+                while (position < size) {
+                    position += journal.transferTo(position, size - position, rest);
+                }
+                rest.force(false);
+            }
+            Files.move(tempFile, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // An append torn by a crash leaves a last line without its newline. It was never acknowledged, and the next
+    // append would be glued onto it, so it is cut off before anything else is written
+    private void truncateTornEntry() throws IOException {
+        try (FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = journal.size();
+            long keep = lastLineEnd(journal, size);
+            if (keep < size) {
+                log.warn("Dropping {} bytes of a torn export preset journal entry", size - keep);
+                journal.truncate(keep);
+                journal.force(true);
+            }
+        }
+    }
+
+    // Offset just past the last newline, or 0 when there is none; reads backwards a block at a time
+    private static long lastLineEnd(FileChannel journal, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = size;
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (journal.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Export preset journal shrank while being read");
+                }
+            }
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private void publish() {
+        presets = List.copyOf(presetsByName.values());
+    }
+}
@@ -1,11 +1,11 @@
 package com.myapp.caac.response;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import com.myapp.caac.entity.ExportConfigurations;
 import com.myapp.caac.enums.ProductName;
-import com.myapp.caac.exception.InvalidConfigurationException;
+import com.myapp.caac.model.ConfigurationSnapshot;
+import com.myapp.caac.repository.ExportConfigurationsRepository;
+import com.myapp.caac.service.ValidationResultCache;
+import com.myapp.caac.service.resource.ConfigurationCache;
 import com.myapp.caac.service.resource.ConfigurationManagementFactory;
 import com.myapp.caac.service.resource.ConfigurationManagementService;
 import lombok.extern.slf4j.Slf4j;
@@ -13,11 +13,8 @@
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -25,9 +22,18 @@
 public class ConfigurationService {
 
     private final ConfigurationManagementFactory configurationManagementFactory;
-
-    public ConfigurationService(ConfigurationManagementFactory configurationManagementFactory) {
+    private final ConfigurationCache configurationCache;
+    private final ValidationResultCache validationResultCache;
+    private final ExportConfigurationsRepository exportConfigurationsRepository;
+
+    public ConfigurationService(ConfigurationManagementFactory configurationManagementFactory,
+                                ConfigurationCache configurationCache,
+                                ValidationResultCache validationResultCache,
+                                ExportConfigurationsRepository exportConfigurationsRepository) {
         this.configurationManagementFactory = configurationManagementFactory;
+        this.configurationCache = configurationCache;
+        this.validationResultCache = validationResultCache;
+        this.exportConfigurationsRepository = exportConfigurationsRepository;
     }
 
     public Optional<String> getConfiguration(String apiName) {
@@ -40,62 +46,36 @@ public Optional<String> getConfiguration(String apiName) {
         return optionalConfigurationContent;
     }
 
-    public void saveConfiguration(String apiName, MultipartFile file) throws IOException {
+    public Optional<ConfigurationSnapshot> getConfigurationSnapshot(String apiName) {
         ProductName productEnum = ProductName.fromString(apiName);
         ConfigurationManagementService configurationManagement = configurationManagementFactory.getConfigurationManagement(productEnum);
-        String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-        if (configurationManagement.validateConfigurationContent(content)) {
-            configurationManagement.saveConfiguration(file);
-        } else {
-            log.error("Invalid file content for API: {}", apiName);
-            throw new InvalidConfigurationException("Invalid file content for api: " + apiName);
+        Optional<ConfigurationSnapshot> optionalSnapshot = configurationManagement.getConfigurationSnapshot();
+        if (optionalSnapshot.isEmpty()) {
+            log.error("Failed to fetch configuration for the given name: {}", apiName);
         }
+        return optionalSnapshot;
     }
 
-    public List<ExportConfigurations> loadExportConfigurations() throws Exception {
-        // Build the path to the resource
-        Path resourceDirectory = Paths.get("src", "main", "resources");
-        Path filePath = resourceDirectory.resolve("exportConfigurations.json");
-
-        // Check if the file exists and is readable
-        if (Files.notExists(filePath) || !Files.isReadable(filePath)) {
-            throw new IOException("File not found or not readable: " + filePath);
-        }
-
-        // Read the file into a String
-        String jsonContent = Files.readString(filePath);
-
-        // Create an ObjectMapper instance
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        // Parse the JSON content into a list of ExportConfigurations objects
-
-        List<ExportConfigurations> exportConfigurations = objectMapper.readValue(jsonContent, new TypeReference<List<ExportConfigurations>>() {
-        });
-        log.info("exportConfigurations:{}", exportConfigurations);
-        return exportConfigurations;
+    public Map<String, Object> getConfigurationCacheStats() {
+        return configurationCache.stats();
     }
 
+    public Map<String, Object> getValidationCacheStats() {
+        return validationResultCache.stats();
+    }
 
-    public void updateAndSaveExportConfigurations(List<ExportConfigurations> exportConfigurationsList) throws Exception {
-        // Build the path to the resource
-        Path resourceDirectory = Paths.get("src", "main", "resources");
-        Path filePath = resourceDirectory.resolve("exportConfigurations.json");
-        log.info("File:{},{}", filePath, Files.exists(filePath));
-        Files.delete(filePath);
-        log.info("File:{},{}", filePath, Files.exists(filePath));
-        // Create an ObjectMapper instance
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        // Enable pretty printing
-        ObjectWriter writer = objectMapper.writerWithDefaultPrettyPrinter();
+    public void saveConfiguration(String apiName, MultipartFile file) throws IOException {
+        ProductName productEnum = ProductName.fromString(apiName);
+        ConfigurationManagementService configurationManagement = configurationManagementFactory.getConfigurationManagement(productEnum);
+        // Content is validated once staged on disk and rejected with InvalidConfigurationException
+        configurationManagement.saveConfiguration(file);
+    }
 
-        // Serialize the list into a JSON string with pretty printing
-        String jsonContent = writer.writeValueAsString(exportConfigurationsList);
+    public List<ExportConfigurations> loadExportConfigurations() {
+        return exportConfigurationsRepository.findAll();
+    }
 
-        // Write the JSON string to the file
-        log.info("Saving file to: {}", filePath.toAbsolutePath());
-        log.info("File Content to: {}", jsonContent);
-        Files.writeString(filePath, jsonContent);
+    public void saveExportConfiguration(ExportConfigurations exportConfigurations) throws IOException {
+        exportConfigurationsRepository.upsert(exportConfigurations);
     }
 }
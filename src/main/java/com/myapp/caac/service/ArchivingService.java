@@ -1,39 +1,404 @@
 package com.myapp.caac.service;
 
+import com.myapp.caac.util.ArchiveSegment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+// Archived versions start out as loose original_timestamp.extension files. A background compactor drops versions
+// outside the retention policy and packs all but the newest version of each file into segments under .segments.
 @Service
+@Slf4j
 public class ArchivingService {
 
     private static final String ARCHIVE_SUBDIRECTORY = "archive";
+    private static final String SEGMENT_SUBDIRECTORY = ".segments";
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    // Latest archive timestamp per archive directory and original file name, i.e. when that file was last replaced;
+    // each archive directory is listed once
+    private final Map<Path, Long> lastArchivedAt = new ConcurrentHashMap<>();
+    private final Set<Path> indexedDirectories = ConcurrentHashMap.newKeySet();
+    // Loose archive files per archive directory, counted towards the next compaction
+    private final Map<Path, AtomicInteger> looseFiles = new ConcurrentHashMap<>();
+    private final Set<Path> compactionsScheduled = ConcurrentHashMap.newKeySet();
+    // Readers look segments up under the read lock; compaction only takes the write lock to swap segments
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private final int keepVersions;
+    private final long maxAgeMillis;
+    private final int compactAfter;
+    private final int maxSegments;
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "archive-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ArchivingService(@Value("${archive.retention.keep-versions:0}") int keepVersions,
+                            @Value("${archive.retention.max-age-days:0}") long maxAgeDays,
+                            @Value("${archive.compaction.after-files:100}") int compactAfter,
+                            @Value("${archive.compaction.max-segments:4}") int maxSegments,
+                            @Value("${archive.compaction.interval-minutes:60}") long intervalMinutes) {
+        this.keepVersions = keepVersions;
+        this.maxAgeMillis = TimeUnit.DAYS.toMillis(maxAgeDays);
+        this.compactAfter = compactAfter;
+        this.maxSegments = Math.max(1, maxSegments);
+        // Versions also age out while nothing is being archived
+        if (intervalMinutes > 0) {
+            compactor.scheduleWithFixedDelay(() -> indexedDirectories.forEach(this::scheduleCompaction),
+                    intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    public Path archiveDirectoryFor(Path directory) {
+        return directory.resolve(ARCHIVE_SUBDIRECTORY);
+    }
 
     public Path archiveFile(Path originalPath) throws IOException {
+        return archiveFile(originalPath, archiveDirectoryFor(originalPath.getParent()));
+    }
+
+    public Path archiveFile(Path originalPath, Path archiveDirectory) throws IOException {
         if (!Files.exists(originalPath)) {
             throw new FileNotFoundException("File to be archived not found: " + originalPath);
         }
 
-        Path archiveDirectory = originalPath.getParent().resolve(ARCHIVE_SUBDIRECTORY);
-
         // Ensure the archive directory exists
         Files.createDirectories(archiveDirectory);
+        indexArchiveDirectory(archiveDirectory);
 
         // Construct a new name for the old file: original_timestamp.extension
         String oldFileName = originalPath.getFileName().toString();
-        String extension = oldFileName.contains(".") ? oldFileName.substring(oldFileName.lastIndexOf('.')) : "";
-        String baseName = oldFileName.contains(".") ? oldFileName.substring(0, oldFileName.lastIndexOf('.')) : oldFileName;
-        String timestamp = "_" + System.currentTimeMillis();
-
-        Path archivePath = archiveDirectory.resolve(baseName + timestamp + extension);
+        long timestamp = System.currentTimeMillis();
+        Path archivePath = archiveDirectory.resolve(archiveName(oldFileName, timestamp));
+        while (Files.exists(archivePath)) {
+            archivePath = archiveDirectory.resolve(archiveName(oldFileName, ++timestamp));
+        }
 
-        // Move (rename) the file
-        Files.move(originalPath, archivePath, StandardCopyOption.REPLACE_EXISTING);
+        // Link (or copy) rather than move, so the live file stays readable until its replacement is published
+        try {
+            Files.createLink(archivePath, originalPath);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(originalPath, archivePath, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        Path directory = normalize(archiveDirectory);
+        lastArchivedAt.merge(directory.resolve(oldFileName), timestamp, Math::max);
+        if (compactAfter > 0 && looseFiles.computeIfAbsent(directory, key -> new AtomicInteger()).incrementAndGet() >= compactAfter) {
+            scheduleCompaction(directory);
+        }
 
         return archivePath;
     }
+
+    // When originalPath was last replaced through archiveFile, empty if it never was
+    public Optional<Long> lastArchivedAt(Path originalPath) throws IOException {
+        return lastArchivedAt(archiveDirectoryFor(originalPath.getParent()), originalPath.getFileName().toString());
+    }
+
+    public Optional<Long> lastArchivedAt(Path archiveDirectory, String fileName) throws IOException {
+        indexArchiveDirectory(archiveDirectory);
+        return Optional.ofNullable(lastArchivedAt.get(normalize(archiveDirectory).resolve(fileName)));
+    }
+
+    // The version of fileName archived at timestamp, whether it is still loose or already packed into a segment
+    public Optional<InputStream> readVersion(Path archiveDirectory, String fileName, long timestamp) throws IOException {
+        Path directory = normalize(archiveDirectory);
+        segmentLock.readLock().lock();
+        try {
+            try {
+                return Optional.of(Files.newInputStream(directory.resolve(archiveName(fileName, timestamp))));
+            } catch (NoSuchFileException e) {
+                // Packed by a compaction
+            }
+            for (Path segment : segments(directory.resolve(SEGMENT_SUBDIRECTORY))) {
+                for (ArchiveSegment.Entry entry : ArchiveSegment.readIndex(segment)) {
+                    if (entry.timestamp() == timestamp && entry.name().equals(fileName)) {
+                        return Optional.of(ArchiveSegment.open(segment, entry));
+                    }
+                }
+            }
+            return Optional.empty();
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    // Queues a compaction of archiveDirectory on the compactor thread, unless one is already queued
+    public void scheduleCompaction(Path archiveDirectory) {
+        Path directory = normalize(archiveDirectory);
+        if (compactionsScheduled.add(directory)) {
+            try {
+                compactor.execute(() -> compactQuietly(directory));
+            } catch (RejectedExecutionException e) {
+                compactionsScheduled.remove(directory);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        // An interrupted compaction leaves only temporary or unindexed files, which the next one removes
+        compactor.shutdownNow();
+    }
+
+    private void compactQuietly(Path directory) {
+        compactionsScheduled.remove(directory);
+        try {
+            compact(directory);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error while compacting archive {}", directory, e);
+        }
+    }
+
+    // Only ever runs on the compactor thread
+    private void compact(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        indexArchiveDirectory(directory);
+        Path segmentDirectory = directory.resolve(SEGMENT_SUBDIRECTORY);
+        Files.createDirectories(segmentDirectory);
+        removeIncompleteSegments(segmentDirectory);
+
+        Map<String, List<Long>> versions = new HashMap<>();
+        Map<String, List<LooseVersion>> loose = new HashMap<>();
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path archive : archives) {
+                parseArchiveName(archive.getFileName().toString()).ifPresent(version -> {
+                    loose.computeIfAbsent(version.name(), key -> new ArrayList<>())
+                            .add(new LooseVersion(archive, version.name(), version.timestamp()));
+                    versions.computeIfAbsent(version.name(), key -> new ArrayList<>()).add(version.timestamp());
+                });
+            }
+        }
+        Map<Path, List<ArchiveSegment.Entry>> segments = new HashMap<>();
+        for (Path segment : segments(segmentDirectory)) {
+            List<ArchiveSegment.Entry> entries = ArchiveSegment.readIndex(segment);
+            segments.put(segment, entries);
+            entries.forEach(entry -> versions.computeIfAbsent(entry.name(), key -> new ArrayList<>()).add(entry.timestamp()));
+        }
+        Set<String> retained = retainedVersions(versions, System.currentTimeMillis());
+
+        List<Path> replacedSegments = new ArrayList<>();
+        List<Path> removedFiles = new ArrayList<>();
+        Set<String> packed = new HashSet<>();
+        int expired = 0;
+        int packedLoose = 0;
+        Path newSegment = segmentDirectory.resolve(SEGMENT_PREFIX + System.currentTimeMillis() + ArchiveSegment.DATA_EXTENSION);
+        try (ArchiveSegment.Writer writer = ArchiveSegment.create(newSegment)) {
+            // Segments holding expired versions are rewritten; too many segments are merged into one
+            boolean mergeAll = segments.size() >= maxSegments;
+            for (Map.Entry<Path, List<ArchiveSegment.Entry>> segment : segments.entrySet()) {
+                boolean intact = segment.getValue().stream().allMatch(entry -> retained.contains(key(entry.name(), entry.timestamp())));
+                if (intact && !mergeAll) {
+                    segment.getValue().forEach(entry -> packed.add(key(entry.name(), entry.timestamp())));
+                    continue;
+                }
+                replacedSegments.add(segment.getKey());
+                for (ArchiveSegment.Entry entry : segment.getValue()) {
+                    String key = key(entry.name(), entry.timestamp());
+                    if (!retained.contains(key)) {
+                        expired++;
+                    } else if (packed.add(key)) {
+                        writer.copy(segment.getKey(), entry);
+                    }
+                }
+            }
+
+            // The newest version of each file stays loose, it is the one most likely to be read back
+            for (List<LooseVersion> fileVersions : loose.values()) {
+                fileVersions.sort(Comparator.comparingLong(LooseVersion::timestamp).reversed());
+                for (int i = 0; i < fileVersions.size(); i++) {
+                    LooseVersion version = fileVersions.get(i);
+                    String key = key(version.name(), version.timestamp());
+                    if (!retained.contains(key)) {
+                        expired++;
+                        removedFiles.add(version.path());
+                    } else if (i > 0) {
+                        // Already packed when an earlier compaction stopped before deleting it
+                        if (packed.add(key)) {
+                            writer.add(version.name(), version.timestamp(), version.path());
+                            packedLoose++;
+                        }
+                        removedFiles.add(version.path());
+                    }
+                }
+            }
+
+            if (writer.isEmpty() && replacedSegments.isEmpty() && removedFiles.isEmpty()) {
+                return;
+            }
+            segmentLock.writeLock().lock();
+            try {
+                if (!writer.isEmpty()) {
+                    writer.finish();
+                }
+                for (Path segment : replacedSegments) {
+                    // Index first, so an interruption leaves an unindexed data file rather than a dangling index
+                    Files.deleteIfExists(ArchiveSegment.indexOf(segment));
+                    Files.deleteIfExists(segment);
+                }
+                for (Path file : removedFiles) {
+                    Files.deleteIfExists(file);
+                }
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+        }
+        looseFiles.computeIfAbsent(directory, key -> new AtomicInteger()).addAndGet(-removedFiles.size());
+        // lastArchivedAt keeps expired timestamps: the files were still replaced at those times
+        log.info("Compacted archive {}: {} versions packed, {} expired, {} segments rewritten",
+                directory, packedLoose, expired, replacedSegments.size());
+    }
+
+    // A version is kept while it is among the newest keepVersions of its file or younger than maxAgeMillis;
+    // with only one of the two configured that one alone decides, with neither everything is kept
+    private Set<String> retainedVersions(Map<String, List<Long>> versions, long now) {
+        Set<String> retained = new HashSet<>();
+        for (Map.Entry<String, List<Long>> file : versions.entrySet()) {
+            List<Long> timestamps = new ArrayList<>(file.getValue());
+            timestamps.sort(Comparator.reverseOrder());
+            for (int i = 0; i < timestamps.size(); i++) {
+                long timestamp = timestamps.get(i);
+                boolean recent = keepVersions > 0 && i < keepVersions;
+                boolean young = maxAgeMillis > 0 && timestamp >= now - maxAgeMillis;
+                if ((keepVersions <= 0 && maxAgeMillis <= 0) || recent || young) {
+                    retained.add(key(file.getKey(), timestamp));
+                }
+            }
+        }
+        return retained;
+    }
+
+    // Leftovers of an interrupted compaction: temporary files and data files whose index was never written
+    private static void removeIncompleteSegments(Path segmentDirectory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDirectory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")
+                        || (name.endsWith(ArchiveSegment.DATA_EXTENSION) && !Files.exists(ArchiveSegment.indexOf(file)))) {
+                    log.warn("Removing incomplete archive segment file {}", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // Complete segments only, oldest first
+    private static List<Path> segments(Path segmentDirectory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(segmentDirectory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDirectory,
+                SEGMENT_PREFIX + "*" + ArchiveSegment.DATA_EXTENSION)) {
+            for (Path file : files) {
+                if (Files.exists(ArchiveSegment.indexOf(file))) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort(Comparator.comparing(Path::toString));
+        return segments;
+    }
+
+    private void indexArchiveDirectory(Path archiveDirectory) throws IOException {
+        Path directory = normalize(archiveDirectory);
+        if (indexedDirectories.contains(directory)) {
+            return;
+        }
+        synchronized (indexedDirectories) {
+            if (indexedDirectories.contains(directory)) {
+                return;
+            }
+            int loose = 0;
+            if (Files.isDirectory(directory)) {
+                try (DirectoryStream<Path> archives = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+                    for (Path archive : archives) {
+                        if (indexArchive(directory, archive.getFileName().toString())) {
+                            loose++;
+                        }
+                    }
+                }
+                for (Path segment : segments(directory.resolve(SEGMENT_SUBDIRECTORY))) {
+                    for (ArchiveSegment.Entry entry : ArchiveSegment.readIndex(segment)) {
+                        lastArchivedAt.merge(directory.resolve(entry.name()), entry.timestamp(), Math::max);
+                    }
+                }
+            }
+            looseFiles.computeIfAbsent(directory, key -> new AtomicInteger()).addAndGet(loose);
+            indexedDirectories.add(directory);
+        }
+    }
+
+    private boolean indexArchive(Path archiveDirectory, String archiveName) {
+        Optional<ArchivedVersion> version = parseArchiveName(archiveName);
+        version.ifPresent(archived -> lastArchivedAt.merge(archiveDirectory.resolve(archived.name()),
+                archived.timestamp(), Math::max));
+        return version.isPresent();
+    }
+
+    private static String archiveName(String fileName, long timestamp) {
+        String extension = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.')) : "";
+        String baseName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        return baseName + "_" + timestamp + extension;
+    }
+
+    // Reverses the original_timestamp.extension naming; anything else in the directory is ignored
+    private static Optional<ArchivedVersion> parseArchiveName(String archiveName) {
+        int dot = archiveName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : archiveName.substring(dot);
+        String stem = dot < 0 ? archiveName : archiveName.substring(0, dot);
+        int separator = stem.lastIndexOf('_');
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+        try {
+            long timestamp = Long.parseLong(stem.substring(separator + 1));
+            return Optional.of(new ArchivedVersion(stem.substring(0, separator) + extension, timestamp));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring unrecognised archive entry {}", archiveName);
+            return Optional.empty();
+        }
+    }
+
+    private static String key(String name, long timestamp) {
+        return name + "\t" + timestamp;
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private record ArchivedVersion(String name, long timestamp) {
+    }
+
+    private record LooseVersion(Path path, String name, long timestamp) {
+    }
 }
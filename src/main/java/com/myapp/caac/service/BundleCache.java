@@ -0,0 +1,108 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.util.LruCache;
+import com.myapp.caac.util.TeeOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@Slf4j
+public class BundleCache {
+
+    private final Path cacheDirectory;
+    private final LruCache<String, CachedBundle> bundles;
+
+    public BundleCache(@Value("${export.bundle.cache.directory:}") String cacheDirectory,
+                       @Value("${export.bundle.cache.max-entries:32}") int maxEntries,
+                       @Value("${export.bundle.cache.max-bytes:536870912}") long maxBytes) throws IOException {
+        this.cacheDirectory = cacheDirectory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "configuration-bundles")
+                : Paths.get(cacheDirectory);
+        // Each build has a file of its own, so deleting an evicted or replaced bundle never touches a newer one
+        this.bundles = new LruCache<>(maxEntries, maxBytes, CachedBundle::size, (key, bundle) -> delete(bundle.path()));
+        Files.createDirectories(this.cacheDirectory);
+        // The index lives in memory only, so anything left from a previous run is unreachable
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.cacheDirectory)) {
+            for (Path leftover : leftovers) {
+                delete(leftover);
+            }
+        }
+    }
+
+    // The caller serves the bundle from the returned channel and closes it. An eviction may delete the file at any
+    // time, but an open channel keeps it readable; one deleted before it could be opened counts as a miss.
+    public Optional<FileChannel> open(String cacheKey) {
+        CachedBundle bundle = bundles.get(cacheKey);
+        if (bundle == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(FileChannel.open(bundle.path(), StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            log.debug("Cached bundle {} was evicted before it could be served", cacheKey);
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Unable to open cached bundle {}: {}", bundle.path(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Streams a freshly built bundle to the client and, in the same pass, into a private temp file that is
+    // published under its key only once complete, so concurrent builds never overwrite each other
+    public void writeThrough(String cacheKey, OutputStream response, BundleWriter writer) throws IOException {
+        Path tempFile = Files.createTempFile(cacheDirectory, cacheKey + "-", ".tmp");
+        try {
+            boolean matchesKey;
+            try (TeeOutputStream out = new TeeOutputStream(response, Files.newOutputStream(tempFile))) {
+                matchesKey = writer.write(out);
+            }
+            if (!matchesKey) {
+                log.info("Bundle {} changed while it was written, not caching it", cacheKey);
+                return;
+            }
+            String fileName = tempFile.getFileName().toString();
+            Path bundlePath = tempFile.resolveSibling(fileName.substring(0, fileName.length() - ".tmp".length()) + ".zip");
+            Files.move(tempFile, bundlePath, StandardCopyOption.ATOMIC_MOVE);
+            if (!bundles.put(cacheKey, new CachedBundle(bundlePath, Files.size(bundlePath)))) {
+                delete(bundlePath);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return bundles.stats();
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete cached bundle {}: {}", path, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    public interface BundleWriter {
+        // Returns false when the content written is not the content the key was built from
+        boolean write(OutputStream out) throws IOException;
+    }
+
+    private record CachedBundle(Path path, long size) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.enums.ProductName;
+import com.myapp.caac.model.EntryValidation;
+import com.myapp.caac.service.resource.LocalFileConfigurationManagementService;
+import com.myapp.caac.util.ContentHash;
+import com.myapp.caac.validations.api.ConfigurationValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Checks every configuration of an import bundle against the validator for its type before anything is applied.
+// Entries are validated concurrently and the first failure cancels the rest.
+@Service
+@Slf4j
+public class BundleValidationService {
+
+    private static final String METADATA_SUFFIX = "_metadata.json";
+
+    private final ConfigurationValidatorFactory validatorFactory;
+    private final ValidationResultCache validationResultCache;
+    private final LocalFileConfigurationManagementService localFileConfigurationManagementService;
+
+    public BundleValidationService(ConfigurationValidatorFactory validatorFactory,
+                                   ValidationResultCache validationResultCache,
+                                   LocalFileConfigurationManagementService localFileConfigurationManagementService) {
+        this.validatorFactory = validatorFactory;
+        this.validationResultCache = validationResultCache;
+        this.localFileConfigurationManagementService = localFileConfigurationManagementService;
+    }
+
+    // The configuration's own file name decides its type; bundles from our export also name metadata "<type>_metadata.json"
+    public Optional<ProductName> productNameOf(String applicationMetadataName, String fileName) {
+        Optional<String> type = localFileConfigurationManagementService.getApiNameByFilename(fileName);
+        if (type.isEmpty() && applicationMetadataName != null && applicationMetadataName.endsWith(METADATA_SUFFIX)) {
+            type = Optional.of(applicationMetadataName.substring(0, applicationMetadataName.length() - METADATA_SUFFIX.length()));
+        }
+        return type.flatMap(id -> Arrays.stream(ProductName.values())
+                .filter(productName -> productName.getId().equals(id))
+                .findFirst());
+    }
+
+    // Returns one result per configuration, in the order given
+    public List<EntryValidation> validate(List<BundleConfiguration> configurations, ExecutorService executor) {
+        EntryValidation[] results = new EntryValidation[configurations.size()];
+        CompletionService<EntryValidation> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<EntryValidation>, Integer> pending = new HashMap<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (int i = 0; i < configurations.size(); i++) {
+                BundleConfiguration configuration = configurations.get(i);
+                if (configuration.productName() == null) {
+                    results[i] = new EntryValidation(configuration.fileName(), null, EntryValidation.Status.UNCHECKED,
+                            "No validator for this configuration");
+                    continue;
+                }
+                pending.put(completion.submit(() -> validate(configuration, failed)), i);
+            }
+            for (int done = 0; done < pending.size() && !failed.get(); done++) {
+                Future<EntryValidation> future = completion.take();
+                EntryValidation result = future.get();
+                results[pending.get(future)] = result;
+                if (result.getStatus() != EntryValidation.Status.VALID) {
+                    failed.set(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.set(true);
+        } catch (ExecutionException e) {
+            log.error("Error while validating import bundle", e.getCause());
+            failed.set(true);
+        } finally {
+            if (failed.get()) {
+                pending.keySet().forEach(future -> future.cancel(true));
+            }
+        }
+
+        List<EntryValidation> report = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            BundleConfiguration configuration = configurations.get(i);
+            report.add(results[i] != null ? results[i] : cancelled(configuration));
+        }
+        return report;
+    }
+
+    public static boolean isValid(List<EntryValidation> report) {
+        return report.stream().allMatch(entry -> entry.getStatus() == EntryValidation.Status.VALID
+                || entry.getStatus() == EntryValidation.Status.UNCHECKED);
+    }
+
+    private EntryValidation validate(BundleConfiguration configuration, AtomicBoolean failed) {
+        ProductName productName = configuration.productName();
+        if (failed.get()) {
+            return cancelled(configuration);
+        }
+        try {
+            String contentHash = configuration.contentHash() != null ? configuration.contentHash() : hash(configuration.source());
+            ConfigurationValidator validator = validatorFactory.getValidator(productName);
+            boolean valid = validationResultCache.isValid(productName, contentHash, () -> {
+                try (InputStream content = configuration.source().open()) {
+                    return validator.isValid(content);
+                }
+            });
+            if (!valid) {
+                log.error("Invalid {} configuration in import bundle: {}", productName, configuration.fileName());
+                return new EntryValidation(configuration.fileName(), productName.getId(), EntryValidation.Status.INVALID,
+                        "Invalid file content for api: " + productName.getId());
+            }
+            return new EntryValidation(configuration.fileName(), productName.getId(), EntryValidation.Status.VALID, null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error while validating {}", configuration.fileName(), e);
+            return new EntryValidation(configuration.fileName(), productName.getId(), EntryValidation.Status.ERROR, e.getMessage());
+        }
+    }
+
+    private static EntryValidation cancelled(BundleConfiguration configuration) {
+        return new EntryValidation(configuration.fileName(),
+                configuration.productName() != null ? configuration.productName().getId() : null,
+                EntryValidation.Status.CANCELLED, null);
+    }
+
+    private static String hash(ContentSource source) throws IOException {
+        MessageDigest digest = ContentHash.newDigest();
+        try (InputStream content = new DigestInputStream(source.open(), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        }
+        return ContentHash.toHex(digest.digest());
+    }
+
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    // contentHash may be null, in which case the content is read once to hash it; productName null means no validator.
+    // size is only reported, never trusted
+    public record BundleConfiguration(String fileName, ProductName productName, String contentHash, long size,
+                                      ContentSource source) {
+    }
+}
@@ -1,16 +1,36 @@
 package com.myapp.caac.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.myapp.caac.enums.ProductName;
 import com.myapp.caac.validations.api.*;
+import com.myapp.caac.validations.schema.CompiledSchema;
+import com.myapp.caac.validations.schema.SchemaCompiler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @Service
+@Slf4j
 public class ConfigurationValidatorFactory {
 
-    private final ConfigurationValidator tenantValidator = new TenantConfigurationValidator();
-    private final ConfigurationValidator productValidator = new ProductConfigurationValidator();
-    private final ConfigurationValidator productFamilyValidator = new ProductFamilyConfigurationValidator();
-    private final ConfigurationValidator apiValidator = new ApiConfigurationValidator();
+    private static final String SCHEMA_LOCATION = "schema/";
+
+    private final ConfigurationValidator tenantValidator;
+    private final ConfigurationValidator productValidator;
+    private final ConfigurationValidator productFamilyValidator;
+    private final ConfigurationValidator apiValidator;
+
+    public ConfigurationValidatorFactory(ObjectMapper objectMapper) {
+        // Schemas are compiled once at startup; validation runs against the compiled form
+        SchemaCompiler compiler = new SchemaCompiler();
+        this.tenantValidator = new TenantConfigurationValidator(loadSchema(ProductName.TENANT, objectMapper, compiler));
+        this.productValidator = new ProductConfigurationValidator(loadSchema(ProductName.PRODUCT, objectMapper, compiler));
+        this.productFamilyValidator = new ProductFamilyConfigurationValidator(loadSchema(ProductName.PRODUCTFAMILY, objectMapper, compiler));
+        this.apiValidator = new ApiConfigurationValidator(loadSchema(ProductName.API, objectMapper, compiler));
+    }
 
     public ConfigurationValidator getValidator(ProductName productName) {
         return switch (productName) {
@@ -20,4 +40,19 @@ public ConfigurationValidator getValidator(ProductName productName) {
             case API -> apiValidator;
         };
     }
+
+    private CompiledSchema loadSchema(ProductName productName, ObjectMapper objectMapper, SchemaCompiler compiler) {
+        ClassPathResource resource = new ClassPathResource(SCHEMA_LOCATION + productName.getId() + ".schema.json");
+        if (!resource.exists()) {
+            log.info("No schema registered for {}, only syntax is validated", productName);
+            return CompiledSchema.ANY;
+        }
+        try (InputStream inputStream = resource.getInputStream()) {
+            CompiledSchema schema = compiler.compile(objectMapper.readTree(inputStream));
+            log.info("Compiled schema for {}", productName);
+            return schema;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid schema for " + productName + ": " + e.getMessage(), e);
+        }
+    }
 }
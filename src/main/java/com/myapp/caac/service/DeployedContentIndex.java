@@ -0,0 +1,81 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.util.ContentHash;
+import com.myapp.caac.util.LruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+// SHA-256 of deployed configuration files, so an import can tell an unchanged file without reading it again.
+// Keyed by file identity (inode) where the file system has one: generations hard-link unchanged files, and a hash
+// recorded for one generation stays valid in the next. Size and modification time guard against stale entries.
+@Service
+@Slf4j
+public class DeployedContentIndex {
+
+    private final LruCache<Object, DeployedContent> hashes;
+
+    public DeployedContentIndex(@Value("${import.content-index.max-entries:10000}") int maxEntries) {
+        this.hashes = new LruCache<>(maxEntries, maxEntries, content -> 1);
+    }
+
+    // Whether file exists and already holds content with this hash
+    public boolean isDeployed(Path file, String sha256) {
+        try {
+            return hashOf(file).map(sha256::equals).orElse(false);
+        } catch (IOException e) {
+            log.warn("Unable to hash deployed file {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    public Optional<String> hashOf(Path file) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        if (!attributes.isRegularFile()) {
+            return Optional.empty();
+        }
+        Object key = keyOf(file, attributes);
+        DeployedContent content = hashes.get(key);
+        if (content != null && content.matches(attributes)) {
+            return Optional.of(content.sha256());
+        }
+        String sha256 = ContentHash.sha256Hex(file);
+        hashes.put(key, new DeployedContent(attributes.size(), attributes.lastModifiedTime().toMillis(), sha256));
+        return Optional.of(sha256);
+    }
+
+    // Called once a file whose hash was computed while it was written has been moved into place
+    public void record(Path file, String sha256) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            hashes.put(keyOf(file, attributes),
+                    new DeployedContent(attributes.size(), attributes.lastModifiedTime().toMillis(), sha256));
+        } catch (IOException e) {
+            log.debug("Unable to index deployed file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static Object keyOf(Path file, BasicFileAttributes attributes) {
+        Object fileKey = attributes.fileKey();
+        return fileKey != null ? fileKey : file.toAbsolutePath().normalize();
+    }
+
+    private record DeployedContent(long size, long lastModified, String sha256) {
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.model.ExportBundle;
+import com.myapp.caac.model.ExportJob;
+import com.myapp.caac.util.CompressionPolicy;
+import com.myapp.caac.util.ZipFileCreator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Builds bundles off the request threads; a full queue rejects new jobs instead of piling up work
+@Service
+@Slf4j
+public class ExportJobService {
+
+    private final Path jobDirectory;
+    private final long retentionMillis;
+    private final ExportService exportService;
+    private final ZipFileCreator zipFileCreator;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "export-job-purger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ExportJobService(@Value("${export.jobs.directory:}") String jobDirectory,
+                            @Value("${export.jobs.threads:2}") int threads,
+                            @Value("${export.jobs.queue-capacity:8}") int queueCapacity,
+                            @Value("${export.jobs.retention-minutes:60}") long retentionMinutes,
+                            @Value("${export.jobs.purge-interval-seconds:60}") long purgeIntervalSeconds,
+                            ExportService exportService,
+                            ZipFileCreator zipFileCreator) throws IOException {
+        this.jobDirectory = jobDirectory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "configuration-export-jobs")
+                : Paths.get(jobDirectory);
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.exportService = exportService;
+        this.zipFileCreator = zipFileCreator;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Files.createDirectories(this.jobDirectory);
+        // Jobs are tracked in memory only, so bundles from a previous run can never be downloaded
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.jobDirectory)) {
+            for (Path leftover : leftovers) {
+                delete(leftover);
+            }
+        }
+        // Bundles expire while nobody submits or polls, rather than filling the directory until the next request
+        if (purgeIntervalSeconds > 0) {
+            purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalSeconds, purgeIntervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    // Throws RejectedExecutionException when every worker is busy and the queue is full
+    public ExportJob submit(String[] ids, String compression, Long since) {
+        purgeExpired();
+        CompressionPolicy policy = zipFileCreator.policy(compression);
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), List.of(ids), policy.getProfile().getId(), since);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, ids, policy));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        log.info("Queued export job {} for {}", job.getId(), job.getIds());
+        return job;
+    }
+
+    // Status and download requests never see a job past its retention, even between scheduled purges
+    public Optional<ExportJob> get(String jobId) {
+        purgeExpired();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    public void close() {
+        purger.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void run(ExportJob job, String[] ids, CompressionPolicy policy) {
+        Path tempFile = null;
+        try {
+            ExportBundle bundle = exportService.buildBundle(ids, job.getSince());
+            if (job.getSince() != null && bundle.getApplicationCount() == 0) {
+                job.completeWithoutChanges(bundle.getVersion());
+                return;
+            }
+            job.start(bundle.getEntries().size(), bundle.getVersion());
+            tempFile = Files.createTempFile(jobDirectory, job.getId(), ".tmp");
+            try (OutputStream out = job.track(Files.newOutputStream(tempFile))) {
+                zipFileCreator.writeZip(bundle.getEntries(), policy, out, (entry, size, sha256) -> job.entryWritten());
+            }
+            Path bundlePath = jobDirectory.resolve(job.getId() + ".zip");
+            Files.move(tempFile, bundlePath, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(bundlePath);
+            log.info("Export job {} finished, {} bytes", job.getId(), job.getBytesWritten().get());
+        } catch (Exception e) {
+            log.error("Export job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                delete(tempFile);
+            }
+        }
+    }
+
+    // Finished jobs and their bundles are kept for the retention period, counted from when they finished
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> {
+            if (!job.getStatus().isFinished() || job.getFinishedAt() > cutoff) {
+                return false;
+            }
+            if (job.getBundlePath() != null) {
+                delete(job.getBundlePath());
+            }
+            return true;
+        });
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete export job file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -1,28 +1,46 @@
 package com.myapp.caac.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.myapp.caac.model.Application;
 import com.myapp.caac.model.ApplicationMetaData;
+import com.myapp.caac.model.ConfigurationSnapshot;
+import com.myapp.caac.model.ExportBundle;
 import com.myapp.caac.model.RootMetadata;
+import com.myapp.caac.service.resource.LocalFileConfigurationManagementService;
+import com.myapp.caac.util.BundleEntry;
+import com.myapp.caac.util.ContentHash;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Slf4j
 public class ExportService {
 
 
+    private static final String ROOT_METADATA = "root_metadata.json";
+
     private final Path resourceDirectory;
+    private final ArchivingService archivingService;
+    private final LocalFileConfigurationManagementService localFileConfigurationManagementService;
+    private final ObjectMapper objectMapper;
 
     public ExportService(@Value("${resource.basepath}") String basePath,
                          @Value("${resource.directory}") String resourceDirectoryPath,
-                         ArchivingService archivingService) {
+                         ArchivingService archivingService,
+                         LocalFileConfigurationManagementService localFileConfigurationManagementService,
+                         ObjectMapper objectMapper) {
         if ("home".equalsIgnoreCase(basePath)) {
             String homeDirectory = System.getProperty("user.home");
             this.resourceDirectory = Paths.get(homeDirectory, resourceDirectoryPath);
@@ -31,6 +49,66 @@ public ExportService(@Value("${resource.basepath}") String basePath,
         } else {
             throw new IllegalArgumentException("Invalid value for resource.basepath");
         }
+        this.archivingService = archivingService;
+        this.localFileConfigurationManagementService = localFileConfigurationManagementService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Root metadata first, then each application's metadata ahead of its file, so readers can stream the bundle
+    public ExportBundle buildBundle(String[] ids) throws IOException {
+        return buildBundle(ids, null);
+    }
+
+    // With since set, only configurations changed after it are included and the metadata describes just those
+    public ExportBundle buildBundle(String[] ids, Long since) throws IOException {
+        Map<String, String> filesToZip = new LinkedHashMap<>();
+        Map<String, ConfigurationSnapshot> snapshots = new HashMap<>();
+        long version = since != null ? since : 0L;
+        for (String id : ids) {
+            Optional<ConfigurationSnapshot> snapshot = localFileConfigurationManagementService.getConfigurationSnapshot(id);
+            if (snapshot.isEmpty()) {
+                log.error("File not found for export: {}", id);
+                continue;
+            }
+            long changedAt = lastChangedAt(snapshot.get());
+            version = Math.max(version, changedAt);
+            if (since != null && changedAt <= since) {
+                log.info("Skipping {}, unchanged since {}", id, since);
+                continue;
+            }
+            String fileName = snapshot.get().getPath().getFileName().toString();
+            filesToZip.put(fileName, id + "_metadata.json");
+            snapshots.put(fileName, snapshot.get());
+        }
+
+        StringBuilder cacheKey = new StringBuilder(String.join(",", filesToZip.keySet()));
+        Map<String, String> contentHashes = new HashMap<>();
+        List<BundleEntry> entries = new ArrayList<>();
+        entries.add(BundleEntry.ofBytes(ROOT_METADATA, objectMapper.writeValueAsBytes(setRootMetadata(filesToZip))));
+        for (Map.Entry<String, String> file : filesToZip.entrySet()) {
+            ApplicationMetaData metadata = setRootMetadata();
+            metadata.setConfigurationFileName(file.getKey());
+            entries.add(BundleEntry.ofBytes(file.getValue(), objectMapper.writeValueAsBytes(metadata)));
+
+            ConfigurationSnapshot snapshot = snapshots.get(file.getKey());
+            cacheKey.append('\n').append(file.getKey()).append(':').append(snapshot.getContentHash());
+            contentHashes.put(file.getKey(), snapshot.getContentHash());
+            entries.add(snapshot.isStreamed()
+                    ? BundleEntry.ofFile(file.getKey(), snapshot.getPath())
+                    : BundleEntry.ofBytes(file.getKey(), snapshot.getContent()));
+        }
+        return new ExportBundle(entries, ContentHash.sha256Hex(cacheKey.toString().getBytes(StandardCharsets.UTF_8)),
+                filesToZip.size(), version, contentHashes);
+    }
+
+    // The archive index records every save; the snapshot's modification time covers files saved before they had any
+    // history and, floored by the generation change time, imports and rollbacks
+    private long lastChangedAt(ConfigurationSnapshot snapshot) throws IOException {
+        long lastModified = snapshot.getLastModified();
+        Path archiveDirectory = archivingService.archiveDirectoryFor(resourceDirectory);
+        return archivingService.lastArchivedAt(archiveDirectory, snapshot.getPath().getFileName().toString())
+                .map(archivedAt -> Math.max(archivedAt, lastModified))
+                .orElse(lastModified);
     }
 
         public RootMetadata setRootMetadata(Map<String, String> fileNames) {
@@ -0,0 +1,110 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.model.Application;
+import com.myapp.caac.model.RootMetadata;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Applications grouped by executionSeq: each level runs in parallel and must finish before the next one starts
+@Slf4j
+public class ImportPlan {
+
+    private final NavigableMap<Integer, List<Application>> levels = new TreeMap<>();
+    private final boolean complete;
+
+    public ImportPlan(RootMetadata rootMetadata) {
+        List<Application> applications = rootMetadata.getApplications() != null ? rootMetadata.getApplications() : List.of();
+        boolean complete = true;
+        for (Application application : applications) {
+            if (application.getExecutionSeq() == null) {
+                log.error("Application {} has no executionSeq", application.getApplicationName());
+                complete = false;
+                continue;
+            }
+            levels.computeIfAbsent(application.getExecutionSeq(), seq -> new ArrayList<>()).add(application);
+        }
+        Integer declared = declaredCount(rootMetadata.getNoOfApplications());
+        if (declared == null) {
+            log.error("Root metadata has no valid noOfApplications: {}", rootMetadata.getNoOfApplications());
+            complete = false;
+        } else if (declared != applications.size()) {
+            log.error("Root metadata declares {} applications but lists {}", declared, applications.size());
+            complete = false;
+        }
+        this.complete = complete;
+    }
+
+    // A missing or non-numeric count marks the bundle invalid instead of failing the request
+    private static Integer declaredCount(String noOfApplications) {
+        if (noOfApplications == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(noOfApplications);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public NavigableMap<Integer, List<Application>> getLevels() {
+        return levels;
+    }
+
+    // Stops at the first level with a failure, since later levels may depend on it
+    public boolean execute(ExecutorService executor, ApplicationStep step) {
+        for (Map.Entry<Integer, List<Application>> level : levels.entrySet()) {
+            if (!executeLevel(executor, level.getValue(), step)) {
+                log.error("Import stopped at executionSeq {}", level.getKey());
+                return false;
+            }
+        }
+        return complete;
+    }
+
+    private boolean executeLevel(ExecutorService executor, List<Application> applications, ApplicationStep step) {
+        if (applications.size() == 1) {
+            return applyQuietly(step, applications.get(0));
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<>(applications.size());
+        for (Application application : applications) {
+            tasks.add(() -> applyQuietly(step, application));
+        }
+        try {
+            boolean levelApplied = true;
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                levelApplied &= result.get();
+            }
+            return levelApplied;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Error while importing application", e.getCause());
+            return false;
+        }
+    }
+
+    private static boolean applyQuietly(ApplicationStep step, Application application) {
+        try {
+            return step.apply(application);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error while importing {}", application.getApplicationName(), e);
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ApplicationStep {
+        boolean apply(Application application) throws IOException;
+    }
+}
@@ -0,0 +1,180 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.model.ImportProgress;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Streams import progress as server-sent events. Importing threads only record progress and queue a flush per
+// subscriber; publisher threads do the sending. Each subscriber has at most one flush running, so a stalled client
+// ties up a publisher thread of its own until its write fails or the emitter times out, and never holds up an
+// import or another client.
+@Service
+@Slf4j
+public class ImportProgressService {
+
+    private final long retentionMillis;
+    private final long timeoutMillis;
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicInteger publisherCount = new AtomicInteger();
+    // Grows with the number of subscribers being written to at once; idle threads exit after a minute
+    private final ExecutorService publisher = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "import-progress-publisher-" + publisherCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImportProgressService(@Value("${import.progress.retention-minutes:10}") long retentionMinutes,
+                                 @Value("${import.progress.timeout-minutes:30}") long timeoutMinutes) {
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+    }
+
+    // A client that wants to follow an import from the start picks the id itself and subscribes before uploading
+    public ImportProgress begin(String importId) {
+        purgeExpired();
+        String id = importId == null || importId.isBlank() ? UUID.randomUUID().toString() : importId;
+        Tracker tracker = trackers.computeIfAbsent(id, Tracker::new);
+        if (!tracker.claimed.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("Import id already in use: " + id);
+        }
+        return tracker.progress;
+    }
+
+    // Replays the stages recorded so far, then follows the import until it finishes
+    public SseEmitter subscribe(String importId) {
+        return subscribe(importId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String importId, SseEmitter emitter) {
+        purgeExpired();
+        Tracker tracker = trackers.computeIfAbsent(importId, Tracker::new);
+        Subscriber subscriber = new Subscriber(emitter, tracker.progress);
+        emitter.onCompletion(() -> tracker.subscribers.remove(subscriber));
+        emitter.onError(e -> tracker.subscribers.remove(subscriber));
+        tracker.subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    @PreDestroy
+    public void close() {
+        publisher.shutdownNow();
+        trackers.values().forEach(Tracker::completeAll);
+    }
+
+    // Finished imports stay subscribable for the retention period; ids subscribed to but never used expire as well
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        trackers.values().removeIf(tracker -> {
+            ImportProgress progress = tracker.progress;
+            boolean expired = progress.isFinished()
+                    ? progress.getFinishedAt() < cutoff
+                    : !progress.isStarted() && progress.getCreatedAt() < cutoff;
+            if (expired) {
+                tracker.completeAll();
+            }
+            return expired;
+        });
+    }
+
+    private final class Tracker {
+
+        private final ImportProgress progress;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Tracker(String id) {
+            this.progress = new ImportProgress(id, this::schedule);
+        }
+
+        // Runs on importing threads
+        private void schedule() {
+            subscribers.forEach(Subscriber::schedule);
+        }
+
+        private void completeAll() {
+            subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        }
+    }
+
+    // Sends only from its own flush, which runs on one publisher thread at a time
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ImportProgress progress;
+        // Changes not yet flushed; the flush is queued by whoever raises it from zero
+        private final AtomicInteger pending = new AtomicInteger();
+        private int stagesSent;
+        private long versionSent = -1;
+        private boolean done;
+
+        private Subscriber(SseEmitter emitter, ImportProgress progress) {
+            this.emitter = emitter;
+            this.progress = progress;
+        }
+
+        // Later changes ride along with a flush already queued or running
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    publisher.execute(this::flush);
+                } catch (RejectedExecutionException e) {
+                    pending.set(0);
+                }
+            }
+        }
+
+        private void flush() {
+            int flushed;
+            do {
+                flushed = pending.get();
+                send();
+            } while (pending.addAndGet(-flushed) != 0);
+        }
+
+        private void send() {
+            if (done) {
+                return;
+            }
+            try {
+                // Read before the stages, the FINISHED stage is always recorded by then
+                boolean finished = progress.isFinished();
+                long version = progress.getVersion();
+                for (Map<String, Object> stage : progress.stagesFrom(stagesSent)) {
+                    emitter.send(SseEmitter.event().name("stage").data(stage));
+                    stagesSent++;
+                }
+                if (version != versionSent) {
+                    emitter.send(SseEmitter.event().name("progress").data(progress.toProgress()));
+                    versionSent = version;
+                }
+                if (finished) {
+                    emitter.send(SseEmitter.event().name("complete").data(progress.getResult().toResponse()));
+                    done = true;
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the import carries on regardless
+                log.debug("Dropping import progress subscriber for {}: {}", progress.getId(), e.getMessage());
+                done = true;
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -1,27 +1,56 @@
 package com.myapp.caac.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.enums.ImportMode;
 import com.myapp.caac.model.Application;
 import com.myapp.caac.model.ApplicationMetaData;
+import com.myapp.caac.model.BundleManifest;
+import com.myapp.caac.model.EntryValidation;
+import com.myapp.caac.model.ImportProgress;
+import com.myapp.caac.model.ImportResult;
+import com.myapp.caac.model.ManifestEntry;
 import com.myapp.caac.model.RootMetadata;
+import com.myapp.caac.service.BundleValidationService.BundleConfiguration;
+import com.myapp.caac.service.BundleValidationService.ContentSource;
+import com.myapp.caac.service.resource.GenerationService;
+import com.myapp.caac.service.resource.GenerationService.Generation;
+import com.myapp.caac.util.ContentHash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.http.fileupload.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 @Service
@@ -29,69 +58,471 @@
 public class ImportService {
 
     private final String ROOT_METADATA = "root_metadata.json";
+    private static final String METADATA_SUFFIX = "_metadata.json";
+    private static final String FILE_UPLOAD = "FileUpload";
     @Autowired
     private ObjectMapper objectMapper;
+    // Imports into the managed configuration directory build a new generation and publish it only if every application applied
+    @Autowired
+    private GenerationService generationService;
+    // Files whose content matches what is already deployed are not rewritten
+    @Autowired
+    private DeployedContentIndex deployedContentIndex;
+    // Every configuration in a bundle is validated before the first one is applied
+    @Autowired
+    private BundleValidationService bundleValidationService;
+    // Metadata entries are parsed from memory, so each one is capped
+    @Value("${import.metadata.max-bytes:1048576}")
+    private int maxMetadataBytes;
+    @Value("${import.threads:4}")
+    private int importThreads;
+    // Applies the applications of one executionSeq level concurrently
+    private ThreadPoolExecutor importExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Caller-runs makes the importing request thread help out instead of queueing without limit
+        importExecutor = new ThreadPoolExecutor(importThreads, importThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(importThreads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        importExecutor.allowCoreThreadTimeOut(true);
+    }
 
-    public String importConfigs(MultipartFile zipFile) throws IOException {
+    @PreDestroy
+    public void close() {
+        importExecutor.shutdownNow();
+    }
+
+    public ImportResult importConfigs(MultipartFile zipFile, ImportMode mode, ImportProgress progress) throws IOException {
+        progress.start(zipFile.getSize());
+        try {
+            if (mode == ImportMode.STREAM) {
+                return importConfigsStreaming(zipFile, progress);
+            }
+            if (mode == ImportMode.RANDOM_ACCESS) {
+                return importConfigsRandomAccess(zipFile, progress);
+            }
+            return importConfigs(zipFile, progress);
+        } finally {
+            progress.finish();
+        }
+    }
+
+    public ImportResult importConfigs(MultipartFile zipFile, ImportProgress progress) throws IOException {
         Boolean flag = true;
+        ImportResult result = progress.getResult();
+        Map<String, String> contentHashes = new HashMap<>();
         Path resourceDirectory = Paths.get("src", "main", "resources", "config");
         log.info("Extracting file to: {}", resourceDirectory.toAbsolutePath());
         File targetDir = new File(resourceDirectory.toAbsolutePath().toString());
 
         //Reading zip and extracting to target directory
-        if (extractingZipFile(zipFile, targetDir)) {
+        if (extractingZipFile(zipFile, targetDir, contentHashes)) {
 
             log.info("Processing Root Metadata file");
             Path filePath = Paths.get(targetDir.getAbsolutePath(), ROOT_METADATA);
             RootMetadata rootMetadata = objectMapper.readValue(
                     new File(filePath.toAbsolutePath().toString()), RootMetadata.class);
 
-            int noOfApplication = Integer.parseInt(rootMetadata.getNoOfApplications());
-            final List<Application> applications = rootMetadata.getApplications();
-            int sequence = 1;
-            while (sequence <= noOfApplication) {
-                int finalSequence = sequence;
-                Optional<Application> applicationOptional = applications.stream()
-                        .filter(e -> Objects.equals(e.getExecutionSeq(), finalSequence)).findFirst();
-
-                if (applicationOptional.isPresent()) {
-                    Application application = applicationOptional.get();
-
-                    //Reading Application metadata file
-                    final String applicationMetadataName = application.getApplicationMetadataName();
-                    filePath = Paths.get(targetDir.getAbsolutePath(), applicationMetadataName);
-                    ApplicationMetaData applicationMetaData = objectMapper.readValue(
-                            new File(filePath.toAbsolutePath().toString()), ApplicationMetaData.class);
-
-                    log.info("Processing application metadata file {}", filePath);
-                    if (Objects.nonNull(applicationMetaData))
-                        processApplicationMetaData(applicationMetaData, targetDir);
-                    else
-                        flag = false;
-                } else {
-                    flag = false;
-                }
-                sequence++;
-            }
+            List<BundleConfiguration> configurations = configurationsOf(rootMetadata,
+                    name -> {
+                        File metadataFile = new File(targetDir, name);
+                        return metadataFile.isFile()
+                                ? Optional.of(objectMapper.readValue(metadataFile, ApplicationMetaData.class))
+                                : Optional.empty();
+                    },
+                    contentHashes::get,
+                    fileName -> targetDir.toPath().resolve(fileName).toFile().length(),
+                    fileName -> () -> Files.newInputStream(targetDir.toPath().resolve(fileName)));
+            progress.stage(ImportProgress.Stage.METADATA_PARSED, configurations.size(), bytesOf(configurations));
+            flag = validate(configurations, progress) && applyExtracted(rootMetadata, targetDir, contentHashes, progress);
         } else {
             flag = false;
         }
 
         // Clean up: delete the temporary directory
         FileUtils.deleteDirectory(targetDir);
-        return flag ? "Imported successfully" : "Import unsuccessfully";
+        return result.complete(flag);
+    }
+
+    private boolean applyExtracted(RootMetadata rootMetadata, File targetDir, Map<String, String> contentHashes,
+                                   ImportProgress progress) {
+        boolean flag;
+        ImportResult result = progress.getResult();
+        try (Generation generation = generationService.begin()) {
+            flag = new ImportPlan(rootMetadata).execute(importExecutor, counted(result, application -> {
+                //Reading Application metadata file
+                Path metadataPath = Paths.get(targetDir.getAbsolutePath(), application.getApplicationMetadataName());
+                ApplicationMetaData applicationMetaData = objectMapper.readValue(
+                        new File(metadataPath.toAbsolutePath().toString()), ApplicationMetaData.class);
+
+                log.info("Processing application metadata file {}", metadataPath);
+                return Objects.nonNull(applicationMetaData)
+                        && processApplicationMetaData(applicationMetaData, targetDir, generation, contentHashes, result);
+            }));
+            publishIfChanged(flag, progress, generation);
+        } catch (IOException e) {
+            log.error("Error while publishing import", e);
+            flag = false;
+        }
+        return flag;
+    }
+
+    // One pass over the upload: metadata is parsed in memory, configuration files are copied with a fixed-size
+    // buffer into a staging file on their destination's file system and renamed into place once every entry has
+    // been read and validated
+    public ImportResult importConfigsStreaming(MultipartFile zipFile, ImportProgress progress) {
+        boolean flag;
+        ImportResult result = progress.getResult();
+        try (StagedBundle staged = new StagedBundle(this::stagingPathOf);
+             ZipInputStream zipInputStream = new ZipInputStream(zipFile.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    stageEntry(entry.getName(), zipInputStream, staged);
+                }
+            }
+            List<BundleConfiguration> configurations = stagedConfigurations(staged);
+            progress.stage(ImportProgress.Stage.METADATA_PARSED, configurations.size(), bytesOf(configurations));
+            flag = validate(configurations, progress) && applyStaged(staged, progress);
+        } catch (IOException e) {
+            log.error("Error while streaming zip File", e);
+            flag = false;
+        }
+        return result.complete(flag);
+    }
+
+    private void stageEntry(String entryName, InputStream content, StagedBundle staged) throws IOException {
+        if (ROOT_METADATA.equals(entryName)) {
+            staged.setRootMetadata(objectMapper.readValue(readMetadata(entryName, content), RootMetadata.class));
+        } else if (BundleManifest.FILE_NAME.equals(entryName)) {
+            log.debug("Skipping bundle manifest");
+        } else if (staged.isApplicationMetadata(entryName) || entryName.endsWith(METADATA_SUFFIX)) {
+            staged.addMetadata(entryName, objectMapper.readValue(readMetadata(entryName, content), ApplicationMetaData.class));
+        } else {
+            Path stagingFile = staged.createStagingFile(entryName);
+            staged.setContentHash(entryName, copyAndHash(content, stagingFile));
+            log.info("Staged {} at {}", entryName, stagingFile);
+        }
     }
 
-    private Boolean processApplicationMetaData(ApplicationMetaData applicationMetaData, File targetDir) {
+    // Spools the upload once, then reads root metadata first and each referenced application's metadata and file by
+    // name, so unreferenced entries are never decompressed
+    public ImportResult importConfigsRandomAccess(MultipartFile zipFile, ImportProgress progress) {
+        boolean flag;
+        ImportResult result = progress.getResult();
+        Path spoolFile = null;
+        try {
+            spoolFile = Files.createTempFile("configuration-import", ".zip");
+            zipFile.transferTo(spoolFile);
+            try (ZipFile zip = new ZipFile(spoolFile.toFile())) {
+                flag = importFromZip(zip, progress);
+            }
+        } catch (IOException e) {
+            log.error("Error while reading zip File", e);
+            flag = false;
+        } finally {
+            deleteQuietly(spoolFile);
+        }
+        return result.complete(flag);
+    }
+
+    // An import that changed nothing is not published, so the live generation and everything cached from it stay put
+    private static void publishIfChanged(boolean flag, ImportProgress progress, Generation generation) throws IOException {
+        ImportResult result = progress.getResult();
+        if (flag && result.getApplied() > 0) {
+            generation.publish();
+        }
+        progress.stage(ImportProgress.Stage.APPLIED, result.getApplied() + result.getSkipped(), result.getBytesApplied());
+    }
+
+    // Counts every application whose step fails or throws
+    private static ImportPlan.ApplicationStep counted(ImportResult result, ImportPlan.ApplicationStep step) {
+        return application -> {
+            boolean applied = false;
+            try {
+                applied = step.apply(application);
+                return applied;
+            } finally {
+                if (!applied) {
+                    result.failed();
+                }
+            }
+        };
+    }
+
+    // Configurations the bundle would write, in plan order; applications without metadata are left to the plan to report
+    private List<BundleConfiguration> configurationsOf(RootMetadata rootMetadata, MetadataReader metadataReader,
+                                                       Function<String, String> contentHashes,
+                                                       ToLongFunction<String> sizes,
+                                                       Function<String, ContentSource> sources) throws IOException {
+        List<BundleConfiguration> configurations = new ArrayList<>();
+        if (rootMetadata == null || rootMetadata.getApplications() == null) {
+            return configurations;
+        }
+        for (Application application : rootMetadata.getApplications()) {
+            String applicationMetadataName = application.getApplicationMetadataName();
+            Optional<ApplicationMetaData> applicationMetaData = applicationMetadataName != null
+                    ? metadataReader.read(applicationMetadataName)
+                    : Optional.empty();
+            if (applicationMetaData.isEmpty() || !FILE_UPLOAD.equals(applicationMetaData.get().getConfigurationOperation())) {
+                continue;
+            }
+            String fileName = applicationMetaData.get().getConfigurationFileName();
+            configurations.add(new BundleConfiguration(fileName,
+                    bundleValidationService.productNameOf(applicationMetadataName, fileName).orElse(null),
+                    contentHashes.apply(fileName), sizes.applyAsLong(fileName), sources.apply(fileName)));
+        }
+        return configurations;
+    }
+
+    private List<BundleConfiguration> stagedConfigurations(StagedBundle staged) throws IOException {
+        return configurationsOf(staged.getRootMetadata(), staged::getMetadata,
+                fileName -> staged.getContentHash(fileName).orElse(null),
+                fileName -> staged.getStagedFile(fileName).map(path -> path.toFile().length()).orElse(0L),
+                fileName -> () -> Files.newInputStream(staged.getStagedFile(fileName)
+                        .orElseThrow(() -> new NoSuchFileException(fileName))));
+    }
+
+    private static long bytesOf(List<BundleConfiguration> configurations) {
+        return configurations.stream().mapToLong(BundleConfiguration::size).sum();
+    }
+
+    private boolean validate(List<BundleConfiguration> configurations, ImportProgress progress) {
+        List<EntryValidation> report = bundleValidationService.validate(configurations, importExecutor);
+        List<BundleConfiguration> checked = new ArrayList<>();
+        for (int i = 0; i < report.size(); i++) {
+            EntryValidation.Status status = report.get(i).getStatus();
+            if (status != EntryValidation.Status.CANCELLED && status != EntryValidation.Status.UNCHECKED) {
+                checked.add(configurations.get(i));
+            }
+        }
+        progress.stage(ImportProgress.Stage.ENTRIES_VALIDATED, checked.size(), bytesOf(checked));
+        if (BundleValidationService.isValid(report)) {
+            return true;
+        }
+        log.error("Import bundle rejected, {} of {} configurations checked before the first failure",
+                report.stream().filter(entry -> entry.getStatus() != EntryValidation.Status.CANCELLED).count(), report.size());
+        progress.getResult().rejected(report);
+        return false;
+    }
+
+    private boolean importFromZip(ZipFile zip, ImportProgress progress) throws IOException {
+        Optional<byte[]> root = readMetadata(zip, ROOT_METADATA);
+        if (root.isEmpty()) {
+            log.error("Bundle has no {}", ROOT_METADATA);
+            return false;
+        }
+        RootMetadata rootMetadata = objectMapper.readValue(root.get(), RootMetadata.class);
+        Map<String, ManifestEntry> manifest = readManifest(zip);
+
+        // Each referenced file is inflated once, into staging, and validated by the hash of what was staged
+        try (StagedBundle staged = new StagedBundle(this::stagingPathOf)) {
+            staged.setRootMetadata(rootMetadata);
+            if (!stageFromZip(zip, rootMetadata, manifest, staged, progress.getResult())) {
+                return false;
+            }
+            List<BundleConfiguration> configurations = stagedConfigurations(staged);
+            progress.stage(ImportProgress.Stage.METADATA_PARSED, configurations.size(), bytesOf(configurations));
+            return validate(configurations, progress) && applyStaged(staged, progress);
+        }
+    }
+
+    private Optional<ApplicationMetaData> readApplicationMetadata(ZipFile zip, String applicationMetadataName) throws IOException {
+        Optional<byte[]> metadata = readMetadata(zip, applicationMetadataName);
+        if (metadata.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(objectMapper.readValue(metadata.get(), ApplicationMetaData.class));
+    }
+
+    // Missing metadata or files are left for the plan to report; a file that does not match the manifest fails the
+    // import before anything is validated or applied
+    private boolean stageFromZip(ZipFile zip, RootMetadata rootMetadata, Map<String, ManifestEntry> manifest,
+                                 StagedBundle staged, ImportResult result) throws IOException {
+        if (rootMetadata.getApplications() == null) {
+            return true;
+        }
+        for (Application application : rootMetadata.getApplications()) {
+            String applicationMetadataName = application.getApplicationMetadataName();
+            Optional<ApplicationMetaData> metadata = applicationMetadataName != null
+                    ? readApplicationMetadata(zip, applicationMetadataName)
+                    : Optional.empty();
+            if (metadata.isEmpty()) {
+                continue;
+            }
+            staged.addMetadata(applicationMetadataName, metadata.get());
+            String fileName = metadata.get().getConfigurationFileName();
+            ZipEntry entry = zip.getEntry(fileName);
+            if (!FILE_UPLOAD.equals(metadata.get().getConfigurationOperation()) || entry == null || entry.isDirectory()
+                    || staged.getStagedFile(fileName).isPresent()) {
+                continue;
+            }
+            Path stagingFile = staged.createStagingFile(fileName);
+            String contentHash;
+            try (InputStream inputStream = zip.getInputStream(entry)) {
+                contentHash = copyAndHash(inputStream, stagingFile);
+            }
+            staged.setContentHash(fileName, contentHash);
+            ManifestEntry manifestEntry = manifest.get(fileName);
+            if (manifestEntry != null && manifestEntry.getSha256() != null && !manifestEntry.getSha256().equals(contentHash)) {
+                log.error("File {} does not match the bundle manifest", fileName);
+                result.failed();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, ManifestEntry> readManifest(ZipFile zip) {
+        Map<String, ManifestEntry> manifest = new HashMap<>();
+        try {
+            Optional<byte[]> content = readMetadata(zip, BundleManifest.FILE_NAME);
+            if (content.isPresent()) {
+                BundleManifest bundleManifest = objectMapper.readValue(content.get(), BundleManifest.class);
+                if ("SHA-256".equalsIgnoreCase(bundleManifest.getAlgorithm()) && bundleManifest.getEntries() != null) {
+                    bundleManifest.getEntries().forEach(entry -> manifest.put(entry.getName(), entry));
+                }
+            }
+        } catch (IOException e) {
+            // Without a usable manifest the staged files are simply not cross-checked
+            log.warn("Ignoring bundle manifest: {}", e.getMessage());
+        }
+        return manifest;
+    }
+
+    // Returns the SHA-256 of what was copied
+    private static String copyAndHash(InputStream content, Path target) throws IOException {
+        MessageDigest digest = ContentHash.newDigest();
+        try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(target), digest)) {
+            content.transferTo(outputStream);
+        }
+        return ContentHash.toHex(digest.digest());
+    }
+
+    private Optional<byte[]> readMetadata(ZipFile zip, String entryName) throws IOException {
+        ZipEntry entry = zip.getEntry(entryName);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = zip.getInputStream(entry)) {
+            return Optional.of(readMetadata(entryName, inputStream));
+        }
+    }
+
+    private byte[] readMetadata(String entryName, InputStream content) throws IOException {
+        byte[] metadata = content.readNBytes(maxMetadataBytes + 1);
+        if (metadata.length > maxMetadataBytes) {
+            throw new IOException("Metadata entry " + entryName + " exceeds " + maxMetadataBytes + " bytes");
+        }
+        return metadata;
+    }
+
+    // Only applying needs the generation, so saves wait for the renames and not for staging or validation
+    private boolean applyStaged(StagedBundle staged, ImportProgress progress) throws IOException {
+        try (Generation generation = generationService.begin()) {
+            staged.setDestinations(metadata -> destinationOf(metadata, generation));
+            boolean applied = applyStagedBundle(staged, progress.getResult());
+            publishIfChanged(applied, progress, generation);
+            return applied;
+        }
+    }
+
+    // Same execution order and success rules as the extracting import
+    private boolean applyStagedBundle(StagedBundle staged, ImportResult result) {
+        RootMetadata rootMetadata = staged.getRootMetadata();
+        if (rootMetadata == null) {
+            log.error("Bundle has no {}", ROOT_METADATA);
+            return false;
+        }
+        return new ImportPlan(rootMetadata).execute(importExecutor, counted(result, application -> {
+            Optional<ApplicationMetaData> applicationMetaData = staged.getMetadata(application.getApplicationMetadataName());
+            if (applicationMetaData.isEmpty()) {
+                log.error("Bundle has no {}", application.getApplicationMetadataName());
+                return false;
+            }
+            return !FILE_UPLOAD.equals(applicationMetaData.get().getConfigurationOperation())
+                    || applyStagedFile(applicationMetaData.get(), staged, result);
+        }));
+    }
+
+    private boolean applyStagedFile(ApplicationMetaData applicationMetaData, StagedBundle staged, ImportResult result) {
+        Optional<Path> stagingFile = staged.takeStagedFile(applicationMetaData.getConfigurationFileName());
+        if (stagingFile.isEmpty()) {
+            log.error("Bundle has no file {}", applicationMetaData.getConfigurationFileName());
+            return false;
+        }
+        Path destinationPath = staged.destinationOf(applicationMetaData);
+        Optional<String> contentHash = staged.getContentHash(applicationMetaData.getConfigurationFileName());
+        if (contentHash.isPresent() && deployedContentIndex.isDeployed(destinationPath, contentHash.get())) {
+            log.info("Unchanged, skipped {}", destinationPath.toAbsolutePath());
+            deleteQuietly(stagingFile.get());
+            result.skipped();
+            return true;
+        }
+        try {
+            Files.createDirectories(destinationPath.toAbsolutePath().getParent());
+            try {
+                Files.move(stagingFile.get(), destinationPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Only files that arrived before their metadata are staged elsewhere, possibly on another file system
+                Files.move(stagingFile.get(), destinationPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.info("File copied successfully to : " + destinationPath.toAbsolutePath());
+            contentHash.ifPresent(sha256 -> deployedContentIndex.record(destinationPath, sha256));
+            result.applied(Files.size(destinationPath));
+            return true;
+        } catch (IOException e) {
+            log.error("Error while copying File", e);
+            deleteQuietly(stagingFile.get());
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path stagingPathOf(ApplicationMetaData applicationMetaData) {
+        return generationService.stagingPath(applicationMetaData.getConfigurationApplyPath(),
+                applicationMetaData.getConfigurationFileName());
+    }
+
+    private static Path destinationOf(ApplicationMetaData applicationMetaData, Generation generation) {
+        return generation.resolve(applicationMetaData.getConfigurationApplyPath(), applicationMetaData.getConfigurationFileName());
+    }
+
+    private Boolean processApplicationMetaData(ApplicationMetaData applicationMetaData, File targetDir, Generation generation,
+                                               Map<String, String> contentHashes, ImportResult result) {
         //TODO: Write more logic here depending on metadata file
-        if ("FileUpload".equals(applicationMetaData.getConfigurationOperation())) {
-            return uploadFile(applicationMetaData, targetDir);
+        if (FILE_UPLOAD.equals(applicationMetaData.getConfigurationOperation())) {
+            return uploadFile(applicationMetaData, targetDir, generation, contentHashes, result);
         }
         return true;
     }
 
-    private Boolean uploadFile(ApplicationMetaData applicationMetaData, File targetDir) {
-        Path destinationPath = Path.of(applicationMetaData.getConfigurationApplyPath(), applicationMetaData.getConfigurationFileName());
+    private Boolean uploadFile(ApplicationMetaData applicationMetaData, File targetDir, Generation generation,
+                               Map<String, String> contentHashes, ImportResult result) {
+        Path destinationPath = destinationOf(applicationMetaData, generation);
+        String contentHash = contentHashes.get(applicationMetaData.getConfigurationFileName());
+        if (contentHash != null && deployedContentIndex.isDeployed(destinationPath, contentHash)) {
+            log.info("Unchanged, skipped {}", destinationPath.toAbsolutePath());
+            result.skipped();
+            return true;
+        }
         File destinationFile = destinationPath.toFile();
         if (!destinationFile.getParentFile().exists()) {
             destinationFile.getParentFile().mkdirs();
@@ -103,6 +534,10 @@ private Boolean uploadFile(ApplicationMetaData applicationMetaData, File targetD
             File sourceFile = new File(filePath.toAbsolutePath().toString());
             Files.move(sourceFile.toPath(), destinationPath, StandardCopyOption.REPLACE_EXISTING);
             log.info("File copied successfully to : " + destinationPath.toAbsolutePath());
+            if (contentHash != null) {
+                deployedContentIndex.record(destinationPath, contentHash);
+            }
+            result.applied(Files.size(destinationPath));
         } catch (IOException e) {
             log.error("Error while copying File", e);
             return false;
@@ -110,7 +545,7 @@ private Boolean uploadFile(ApplicationMetaData applicationMetaData, File targetD
         return true;
     }
 
-    private Boolean extractingZipFile(MultipartFile zipFile, File tempDirectory) {
+    private Boolean extractingZipFile(MultipartFile zipFile, File tempDirectory, Map<String, String> contentHashes) {
         // Create a ZipInputStream to read the contents of the uploaded zip file
         try (ZipInputStream zipInputStream = new ZipInputStream(zipFile.getInputStream())) {
             ZipEntry entry;
@@ -125,7 +560,9 @@ private Boolean extractingZipFile(MultipartFile zipFile, File tempDirectory) {
 
                 // Write the entry data to the entry file
                 try (OutputStream outputStream = new FileOutputStream(entryFile)) {
-                    outputStream.write(zipInputStream.readAllBytes());
+                    byte[] content = zipInputStream.readAllBytes();
+                    outputStream.write(content);
+                    contentHashes.put(entryName, ContentHash.sha256Hex(content));
                 }
             }
         } catch (IOException e) {
@@ -135,4 +572,8 @@ private Boolean extractingZipFile(MultipartFile zipFile, File tempDirectory) {
         return true;
     }
 
+    @FunctionalInterface
+    private interface MetadataReader {
+        Optional<ApplicationMetaData> read(String applicationMetadataName) throws IOException;
+    }
 }
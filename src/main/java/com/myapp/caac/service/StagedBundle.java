@@ -0,0 +1,136 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.model.ApplicationMetaData;
+import com.myapp.caac.model.RootMetadata;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Metadata parsed from a bundle plus the staging files its configurations were written to; closing it removes
+// whatever staging files were not applied. Staging can start before the destinations are known, as long as it
+// happens on their file system. Applications of one import level use it concurrently.
+@Slf4j
+public class StagedBundle implements Closeable {
+
+    private static final String FILE_UPLOAD = "FileUpload";
+
+    @Getter
+    @Setter
+    private RootMetadata rootMetadata;
+    private final Map<String, ApplicationMetaData> metadataByName = new ConcurrentHashMap<>();
+    private final Map<String, Path> stagedFiles = new ConcurrentHashMap<>();
+    // SHA-256 of each staged file, computed while it was written
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+    private final Function<ApplicationMetaData, Path> stagingPaths;
+    private volatile Function<ApplicationMetaData, Path> destinations;
+    private Path spillDirectory;
+
+    // stagingPaths maps an application's metadata to a path beside which its configuration file can be staged
+    public StagedBundle(Function<ApplicationMetaData, Path> stagingPaths) {
+        this.stagingPaths = stagingPaths;
+    }
+
+    // Maps an application's metadata to where its configuration file is to be written; set before applying
+    public void setDestinations(Function<ApplicationMetaData, Path> destinations) {
+        this.destinations = destinations;
+    }
+
+    public void addMetadata(String name, ApplicationMetaData metadata) {
+        metadataByName.put(name, metadata);
+    }
+
+    public Optional<ApplicationMetaData> getMetadata(String name) {
+        return Optional.ofNullable(metadataByName.get(name));
+    }
+
+    public boolean isApplicationMetadata(String name) {
+        return rootMetadata != null && rootMetadata.getApplications() != null
+                && rootMetadata.getApplications().stream()
+                .anyMatch(application -> name.equals(application.getApplicationMetadataName()));
+    }
+
+    // Where an uploaded configuration file can be staged, known once its application metadata has been read
+    private Optional<Path> stagingPathOf(String fileName) {
+        return metadataByName.values().stream()
+                .filter(metadata -> FILE_UPLOAD.equals(metadata.getConfigurationOperation()))
+                .filter(metadata -> fileName.equals(metadata.getConfigurationFileName()))
+                .map(stagingPaths)
+                .findFirst();
+    }
+
+    public Path destinationOf(ApplicationMetaData metadata) {
+        Function<ApplicationMetaData, Path> current = destinations;
+        if (current == null) {
+            throw new IllegalStateException("Destinations are not known yet");
+        }
+        return current.apply(metadata);
+    }
+
+    // Staging happens on the destination's file system so applying is a rename; files seen before their metadata spill
+    // to a temp directory
+    public Path createStagingFile(String fileName) throws IOException {
+        Optional<Path> stagingPath = stagingPathOf(fileName);
+        Path directory;
+        if (stagingPath.isPresent()) {
+            directory = stagingPath.get().toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+        } else {
+            directory = spillDirectory();
+        }
+        Path stagingFile = Files.createTempFile(directory, "." + Path.of(fileName).getFileName(), ".import");
+        Path previous = stagedFiles.put(fileName, stagingFile);
+        if (previous != null) {
+            delete(previous);
+        }
+        return stagingFile;
+    }
+
+    private synchronized Path spillDirectory() throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = Files.createTempDirectory("configuration-import");
+        }
+        return spillDirectory;
+    }
+
+    public Optional<Path> getStagedFile(String fileName) {
+        return Optional.ofNullable(stagedFiles.get(fileName));
+    }
+
+    public Optional<Path> takeStagedFile(String fileName) {
+        return Optional.ofNullable(stagedFiles.remove(fileName));
+    }
+
+    public void setContentHash(String fileName, String sha256) {
+        contentHashes.put(fileName, sha256);
+    }
+
+    public Optional<String> getContentHash(String fileName) {
+        return Optional.ofNullable(contentHashes.get(fileName));
+    }
+
+    @Override
+    public synchronized void close() {
+        stagedFiles.values().forEach(StagedBundle::delete);
+        stagedFiles.clear();
+        if (spillDirectory != null) {
+            delete(spillDirectory);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete import staging file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.enums.ProductName;
+import com.myapp.caac.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Service
+public class ValidationResultCache {
+
+    private final LruCache<ValidationKey, Boolean> results;
+
+    public ValidationResultCache(@Value("${validation.cache.max-entries:1024}") int maxEntries) {
+        this.results = new LruCache<>(maxEntries, Long.MAX_VALUE, result -> 0);
+    }
+
+    // Runs the validation only for content not seen before; schemas are fixed at startup so results never go stale
+    public boolean isValid(ProductName productName, String contentHash, Validation validation) throws IOException {
+        ValidationKey key = new ValidationKey(productName, contentHash);
+        Boolean cached = results.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        boolean valid = validation.validate();
+        results.put(key, valid);
+        return valid;
+    }
+
+    public Map<String, Object> stats() {
+        return results.stats();
+    }
+
+    @FunctionalInterface
+    public interface Validation {
+        boolean validate() throws IOException;
+    }
+
+    private record ValidationKey(ProductName productName, String contentHash) {
+    }
+}
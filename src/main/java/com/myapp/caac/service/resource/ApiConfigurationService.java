@@ -1,6 +1,7 @@
 package com.myapp.caac.service.resource;
 
 import com.myapp.caac.enums.ProductName;
+import com.myapp.caac.model.ConfigurationSnapshot;
 import com.myapp.caac.service.ConfigurationValidatorFactory;
 import com.myapp.caac.validations.api.ConfigurationValidator;
 import org.springframework.stereotype.Service;
@@ -27,9 +28,14 @@ public Optional<String> getConfiguration() {
         return localFileConfigurationManagementService.getConfiguration(apiName.toString());
     }
 
+    @Override
+    public Optional<ConfigurationSnapshot> getConfigurationSnapshot() {
+        return localFileConfigurationManagementService.getConfigurationSnapshot(apiName.toString());
+    }
+
     @Override
     public void saveConfiguration(MultipartFile file) throws IOException {
-        localFileConfigurationManagementService.saveConfiguration(file, apiName.toString());
+        localFileConfigurationManagementService.saveConfiguration(file, apiName.toString(), validator);
     }
 
     @Override
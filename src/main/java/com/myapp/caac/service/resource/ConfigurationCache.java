@@ -0,0 +1,168 @@
+package com.myapp.caac.service.resource;
+
+import com.myapp.caac.model.ConfigurationSnapshot;
+import com.myapp.caac.util.LruCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class ConfigurationCache {
+
+    private final LruCache<Path, ConfigurationSnapshot> snapshots;
+    // Bumped on every invalidation so a load racing with a file change is never cached
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile WatchService watchService;
+    // Key of the directory currently watched; events from keys cancelled by switchTo are ignored
+    private volatile WatchKey currentKey;
+
+    public ConfigurationCache(@Value("${resource.cache.max-entries:64}") int maxEntries,
+                              @Value("${resource.cache.max-bytes:67108864}") long maxBytes) {
+        this.snapshots = new LruCache<>(maxEntries, maxBytes, ConfigurationSnapshot::getCachedBytes);
+    }
+
+    public boolean isWatching() {
+        return watchService != null;
+    }
+
+    public synchronized void watch(Path directory) {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            currentKey = register(directory, service);
+            Thread watcher = new Thread(() -> processEvents(service), "configuration-cache-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            watchService = service;
+            log.info("Watching {} for configuration changes", directory.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Configuration cache disabled, unable to watch {}: {}", directory.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    // Moves the watch to another directory, e.g. a newly published configuration generation, and drops every
+    // cached snapshot since they all belong to the previous directory
+    public synchronized void switchTo(Path directory) {
+        if (watchService == null) {
+            watch(directory);
+        } else {
+            try {
+                WatchKey previousKey = currentKey;
+                currentKey = register(directory, watchService);
+                previousKey.cancel();
+                log.info("Watching {} for configuration changes", directory.toAbsolutePath());
+            } catch (IOException e) {
+                log.warn("Configuration cache disabled, unable to watch {}: {}", directory.toAbsolutePath(), e.getMessage());
+                closeQuietly(watchService);
+                watchService = null;
+            }
+        }
+        invalidateAll();
+    }
+
+    public ConfigurationSnapshot get(Path filePath) {
+        return snapshots.get(filePath);
+    }
+
+    public long currentStamp() {
+        return invalidations.get();
+    }
+
+    public void put(Path filePath, ConfigurationSnapshot snapshot, long stamp) {
+        synchronized (invalidations) {
+            if (stamp == invalidations.get()) {
+                snapshots.put(filePath, snapshot);
+            }
+        }
+    }
+
+    public void invalidate(Path filePath) {
+        synchronized (invalidations) {
+            invalidations.incrementAndGet();
+            snapshots.invalidate(filePath);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (invalidations) {
+            invalidations.incrementAndGet();
+            snapshots.invalidateAll();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = snapshots.stats();
+        stats.put("watching", isWatching());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private static void closeQuietly(WatchService service) {
+        try {
+            service.close();
+        } catch (IOException e) {
+            log.debug("Error closing configuration watch service: {}", e.getMessage());
+        }
+    }
+
+    private static WatchKey register(Path directory, WatchService service) throws IOException {
+        return directory.register(service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void processEvents(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                if (key != currentKey) {
+                    key.pollEvents();
+                    continue;
+                }
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        log.info("Watch events overflowed for {}, clearing configuration cache", directory);
+                        invalidateAll();
+                    } else {
+                        Path changed = directory.resolve((Path) event.context());
+                        log.debug("Configuration file changed: {}", changed);
+                        invalidate(changed);
+                    }
+                }
+                if (!key.reset() && key == currentKey) {
+                    log.warn("Watch on {} is no longer valid, disabling configuration cache", directory);
+                    watchService = null;
+                    invalidateAll();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Configuration cache watcher stopped");
+        }
+    }
+}
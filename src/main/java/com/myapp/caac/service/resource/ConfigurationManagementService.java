@@ -1,5 +1,6 @@
 package com.myapp.caac.service.resource;
 
+import com.myapp.caac.model.ConfigurationSnapshot;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -8,6 +9,8 @@
 public interface ConfigurationManagementService {
     Optional<String> getConfiguration();
 
+    Optional<ConfigurationSnapshot> getConfigurationSnapshot();
+
     void saveConfiguration(MultipartFile file) throws IOException;
 
     boolean validateConfigurationContent(String file);
@@ -0,0 +1,405 @@
+package com.myapp.caac.service.resource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Configuration files live in <resource.directory>/.generations/<id>; the "current" symlink names the live one and
+// is replaced with a single rename, so readers see either the old or the new generation, never a mix.
+// archive/ and .compressed/ stay at the top level and are shared by all generations. .generations/history lists the
+// published generations in the order they went live, which is the order rollback walks back through, and
+// .generations/changes when each file last changed through a publish or rollback.
+@Service
+@Slf4j
+public class GenerationService {
+
+    private static final String GENERATIONS_SUBDIRECTORY = ".generations";
+    private static final String CURRENT_LINK = "current";
+    private static final String GENERATION_PREFIX = "gen-";
+    private static final String HISTORY_FILE = "history";
+    private static final String CHANGES_FILE = "changes";
+
+    private final Path resourceDirectory;
+    private final Path generationsDirectory;
+    private final Path currentLink;
+    private final Path historyFile;
+    private final Path changesFile;
+    private final int keepGenerations;
+    private final ConfigurationCache configurationCache;
+    // Saves share the read side; an import holds the write side from seeding its generation until it is published
+    private final ReadWriteLock importLock = new ReentrantReadWriteLock();
+    // Published generation ids, oldest first, the current one last; only touched while the import lock's write side
+    // is held, or during construction
+    private final Deque<String> history = new ArrayDeque<>();
+    // File name to when switching generations last changed it; a rollback brings back older modification times
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+    // Null when symlinks are unavailable, in which case files are read and written in resourceDirectory as before
+    private volatile Path currentGeneration;
+
+    public GenerationService(@Value("${resource.basepath}") String basePath,
+                             @Value("${resource.directory}") String resourceDirectoryPath,
+                             @Value("${resource.generations.keep:5}") int keepGenerations,
+                             ConfigurationCache configurationCache) throws IOException {
+        if ("home".equalsIgnoreCase(basePath)) {
+            String homeDirectory = System.getProperty("user.home");
+            this.resourceDirectory = Paths.get(homeDirectory, resourceDirectoryPath).toAbsolutePath().normalize();
+        } else if ("project".equalsIgnoreCase(basePath)) {
+            this.resourceDirectory = Paths.get(resourceDirectoryPath).toAbsolutePath().normalize();
+        } else {
+            throw new IllegalArgumentException("Invalid value for resource.basepath");
+        }
+        this.generationsDirectory = resourceDirectory.resolve(GENERATIONS_SUBDIRECTORY);
+        this.currentLink = resourceDirectory.resolve(CURRENT_LINK);
+        this.historyFile = generationsDirectory.resolve(HISTORY_FILE);
+        this.changesFile = generationsDirectory.resolve(CHANGES_FILE);
+        this.keepGenerations = Math.max(2, keepGenerations);
+        this.configurationCache = configurationCache;
+        initialize();
+    }
+
+    public boolean isEnabled() {
+        return currentGeneration != null;
+    }
+
+    public Path getResourceDirectory() {
+        return resourceDirectory;
+    }
+
+    // Where configuration files are read and written right now; a volatile read, no locking
+    public Path currentDirectory() {
+        Path generation = currentGeneration;
+        return generation != null ? generation : resourceDirectory;
+    }
+
+    public Optional<String> currentGenerationId() {
+        Path generation = currentGeneration;
+        return generation == null ? Optional.empty() : Optional.of(generation.getFileName().toString());
+    }
+
+    // When a publish or rollback last changed fileName, 0 if none did; a floor for its modification time
+    public long changedAt(String fileName) {
+        return changedAt.getOrDefault(fileName, 0L);
+    }
+
+    public ReadWriteLock getImportLock() {
+        return importLock;
+    }
+
+    // Seeds a new generation with links to the current files; the caller applies its changes and publishes it,
+    // or closes it to throw it away. Imports are serialized for as long as the generation is open.
+    public Generation begin() throws IOException {
+        importLock.writeLock().lock();
+        try {
+            if (!isEnabled()) {
+                return new Generation(null);
+            }
+            Path generation = newGenerationDirectory();
+            linkFiles(currentGeneration, generation);
+            return new Generation(generation);
+        } catch (IOException | RuntimeException e) {
+            importLock.writeLock().unlock();
+            throw e;
+        }
+    }
+
+    // Points "current" back at the generation that was live before it. The generation rolled away from leaves the
+    // history, so a later rollback never returns to it, even after another import has been published.
+    public Optional<String> rollback() throws IOException {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        importLock.writeLock().lock();
+        try {
+            if (history.size() < 2) {
+                return Optional.empty();
+            }
+            String current = history.removeLast();
+            while (!history.isEmpty()) {
+                Path previous = generationsDirectory.resolve(history.getLast());
+                if (Files.isDirectory(previous)) {
+                    switchTo(previous);
+                    saveHistory();
+                    return Optional.of(history.getLast());
+                }
+                log.warn("Configuration generation {} is gone, skipping it", previous.getFileName());
+                history.removeLast();
+            }
+            history.addLast(current);
+            return Optional.empty();
+        } finally {
+            importLock.writeLock().unlock();
+        }
+    }
+
+    // Where a file bound for applyPath can be staged before a generation is begun: on the file system it ends up on,
+    // but outside every generation, since the next one is seeded from the current one's files
+    public Path stagingPath(String applyPath, String fileName) {
+        return resolveIn(resourceDirectory, applyPath, fileName);
+    }
+
+    private Path resolveIn(Path directory, String applyPath, String fileName) {
+        Path target = Path.of(applyPath).toAbsolutePath().normalize();
+        if (directory == null || !(target.equals(resourceDirectory) || target.equals(currentLink))) {
+            return target.resolve(fileName);
+        }
+        Path resolved = directory.resolve(fileName).normalize();
+        if (!directory.equals(resolved.getParent())) {
+            throw new IllegalArgumentException("Invalid configuration file name: " + fileName);
+        }
+        return resolved;
+    }
+
+    private void initialize() throws IOException {
+        Files.createDirectories(resourceDirectory);
+        if (Files.isSymbolicLink(currentLink)) {
+            currentGeneration = resourceDirectory.resolve(Files.readSymbolicLink(currentLink)).normalize();
+            loadHistory();
+            loadChanges();
+            log.info("Configuration generation {} is current", currentGeneration.getFileName());
+            return;
+        }
+        // First start on this layout: move the top-level configuration files into an initial generation
+        Path generation = newGenerationDirectory();
+        linkFiles(resourceDirectory, generation);
+        try {
+            Files.createSymbolicLink(currentLink, resourceDirectory.relativize(generation));
+        } catch (UnsupportedOperationException | IOException e) {
+            log.warn("Symbolic links unavailable, configuration generations disabled: {}", e.getMessage());
+            deleteGeneration(generation);
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(resourceDirectory, Files::isRegularFile)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        currentGeneration = generation;
+        history.addLast(generation.getFileName().toString());
+        saveHistory();
+        log.info("Moved configuration files into generation {}", generation.getFileName());
+    }
+
+    // Only called while the import lock's write side is held; generations that dropped out of the history, such as
+    // ones rolled away from, are deleted
+    private void publish(Path generation) throws IOException {
+        switchTo(generation);
+        history.addLast(generation.getFileName().toString());
+        while (history.size() > keepGenerations) {
+            history.removeFirst();
+        }
+        saveHistory();
+        Set<String> kept = new HashSet<>(history);
+        for (Path existing : listGenerations()) {
+            if (!kept.contains(existing.getFileName().toString()) && !existing.equals(currentGeneration)) {
+                deleteGeneration(existing);
+            }
+        }
+    }
+
+    // A layout from before the history was kept falls back to name order, which was publish order until then.
+    // If the process stopped between switching "current" and saving the history, the current generation is added
+    private void loadHistory() throws IOException {
+        String current = currentGeneration.getFileName().toString();
+        if (Files.isRegularFile(historyFile)) {
+            for (String line : Files.readAllLines(historyFile, StandardCharsets.UTF_8)) {
+                String id = line.strip();
+                if (!id.isEmpty() && Files.isDirectory(generationsDirectory.resolve(id))) {
+                    history.addLast(id);
+                }
+            }
+        } else {
+            for (Path generation : listGenerations()) {
+                String id = generation.getFileName().toString();
+                if (id.compareTo(current) < 0) {
+                    history.addLast(id);
+                }
+            }
+        }
+        history.remove(current);
+        history.addLast(current);
+        while (history.size() > keepGenerations) {
+            history.removeFirst();
+        }
+    }
+
+    private void saveHistory() throws IOException {
+        Path tempFile = Files.createTempFile(generationsDirectory, "." + HISTORY_FILE, ".tmp");
+        try {
+            Files.write(tempFile, history, StandardCharsets.UTF_8);
+            Files.move(tempFile, historyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void loadChanges() throws IOException {
+        if (!Files.isRegularFile(changesFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(changesFile, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length == 2) {
+                try {
+                    changedAt.put(fields[0], Long.parseLong(fields[1]));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring malformed generation change entry: {}", line);
+                }
+            }
+        }
+    }
+
+    private void saveChanges() throws IOException {
+        List<String> lines = new ArrayList<>();
+        changedAt.forEach((fileName, time) -> lines.add(fileName + "\t" + time));
+        Path tempFile = Files.createTempFile(generationsDirectory, "." + CHANGES_FILE, ".tmp");
+        try {
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, changesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Generations share unchanged files as hard links, so any file that is not the same file in both changed.
+    // Recorded before the switch: a reader still on the old generation at worst sees a later time than needed.
+    private void recordChanges(Path from, Path to) throws IOException {
+        Set<String> fileNames = new HashSet<>();
+        for (Path generation : List.of(from, to)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(generation, Files::isRegularFile)) {
+                files.forEach(file -> fileNames.add(file.getFileName().toString()));
+            }
+        }
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        for (String fileName : fileNames) {
+            Path before = from.resolve(fileName);
+            Path after = to.resolve(fileName);
+            if (!Files.exists(before) || !Files.exists(after) || !Files.isSameFile(before, after)) {
+                changedAt.put(fileName, now);
+                changed = true;
+            }
+        }
+        if (changed) {
+            saveChanges();
+        }
+    }
+
+    private void switchTo(Path generation) throws IOException {
+        if (currentGeneration != null && Files.isDirectory(currentGeneration)) {
+            recordChanges(currentGeneration, generation);
+        }
+        // rename(2) over the old link is atomic, readers resolve either the old target or the new one
+        Path link = resourceDirectory.resolve("." + CURRENT_LINK + "-" + generation.getFileName());
+        Files.deleteIfExists(link);
+        Files.createSymbolicLink(link, resourceDirectory.relativize(generation));
+        try {
+            Files.move(link, currentLink, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(link);
+        }
+        currentGeneration = generation;
+        configurationCache.switchTo(generation);
+        log.info("Configuration generation {} is now current", generation.getFileName());
+    }
+
+    private Path newGenerationDirectory() throws IOException {
+        Files.createDirectories(generationsDirectory);
+        long id = System.currentTimeMillis();
+        Path generation = generationsDirectory.resolve(GENERATION_PREFIX + id);
+        while (Files.exists(generation)) {
+            generation = generationsDirectory.resolve(GENERATION_PREFIX + (++id));
+        }
+        return Files.createDirectory(generation);
+    }
+
+    // Hard links keep seeding cheap; nothing ever writes into an existing file, changes are always renames
+    private static void linkFiles(Path source, Path target) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(source, Files::isRegularFile)) {
+            for (Path file : files) {
+                Path link = target.resolve(file.getFileName());
+                try {
+                    Files.createLink(link, file);
+                } catch (UnsupportedOperationException | IOException e) {
+                    Files.copy(file, link, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    private List<Path> listGenerations() throws IOException {
+        List<Path> generations = new ArrayList<>();
+        if (Files.isDirectory(generationsDirectory)) {
+            try (DirectoryStream<Path> directories = Files.newDirectoryStream(generationsDirectory, GENERATION_PREFIX + "*")) {
+                directories.forEach(generations::add);
+            }
+        }
+        generations.sort(Comparator.comparing(generation -> generation.getFileName().toString()));
+        return generations;
+    }
+
+    private static void deleteGeneration(Path generation) {
+        try (Stream<Path> paths = Files.walk(generation)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete configuration generation {}: {}", generation, e.getMessage());
+        }
+    }
+
+    // A generation being built by an import
+    public class Generation implements Closeable {
+
+        private final Path directory;
+        private boolean published;
+
+        private Generation(Path directory) {
+            this.directory = directory;
+        }
+
+        // Files aimed at the managed configuration directory land in this generation, anything else goes where asked
+        public Path resolve(String applyPath, String fileName) {
+            return resolveIn(directory, applyPath, fileName);
+        }
+
+        public void publish() throws IOException {
+            if (directory != null) {
+                GenerationService.this.publish(directory);
+            }
+            published = true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!published && directory != null) {
+                    deleteGeneration(directory);
+                }
+            } finally {
+                importLock.writeLock().unlock();
+            }
+        }
+    }
+}
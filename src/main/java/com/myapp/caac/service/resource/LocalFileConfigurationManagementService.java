@@ -1,29 +1,50 @@
 package com.myapp.caac.service.resource;
 
+import com.myapp.caac.enums.ProductName;
+import com.myapp.caac.exception.InvalidConfigurationException;
 import com.myapp.caac.model.Configuration;
+import com.myapp.caac.model.ConfigurationSnapshot;
 import com.myapp.caac.service.ArchivingService;
+import com.myapp.caac.service.ValidationResultCache;
+import com.myapp.caac.util.ContentHash;
+import com.myapp.caac.util.Gzip;
+import com.myapp.caac.validations.api.ConfigurationValidator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @Slf4j
 public class LocalFileConfigurationManagementService {
 
+    private static final String COMPRESSED_SUBDIRECTORY = ".compressed";
+
     private final Path resourceDirectory;
     private final ArchivingService archivingService;
+    private final ConfigurationCache configurationCache;
+    private final GenerationService generationService;
+    private final ValidationResultCache validationResultCache;
+    private final long maxInMemoryBytes;
+    private final Map<String, ReentrantLock> writeLocks = new ConcurrentHashMap<>();
 
     private final List<Configuration> configurations = List.of(
             new Configuration("tenant", "tenant.yaml"),
@@ -34,7 +55,11 @@ public class LocalFileConfigurationManagementService {
 
     public LocalFileConfigurationManagementService(@Value("${resource.basepath}") String basePath,
                                                    @Value("${resource.directory}") String resourceDirectoryPath,
-                                                   ArchivingService archivingService) {
+                                                   ArchivingService archivingService,
+                                                   ConfigurationCache configurationCache,
+                                                   GenerationService generationService,
+                                                   ValidationResultCache validationResultCache,
+                                                   @Value("${resource.stream.threshold-bytes:1048576}") long maxInMemoryBytes) {
         if ("home".equalsIgnoreCase(basePath)) {
             String homeDirectory = System.getProperty("user.home");
             this.resourceDirectory = Paths.get(homeDirectory, resourceDirectoryPath);
@@ -44,11 +69,17 @@ public LocalFileConfigurationManagementService(@Value("${resource.basepath}") St
             throw new IllegalArgumentException("Invalid value for resource.basepath");
         }
         this.archivingService = archivingService;
+        this.configurationCache = configurationCache;
+        this.generationService = generationService;
+        this.validationResultCache = validationResultCache;
+        this.maxInMemoryBytes = maxInMemoryBytes;
+        if (Files.isDirectory(generationService.currentDirectory())) {
+            configurationCache.watch(generationService.currentDirectory());
+        }
+        // Applies the archive retention policy from startup rather than from the first save
+        archivingService.scheduleCompaction(archivingService.archiveDirectoryFor(resourceDirectory));
     }
 
-
-
-
     private Optional<Configuration> findByType(String type) {
         return configurations.stream()
                 .filter(conf -> conf.getType().equals(type))
@@ -59,23 +90,46 @@ private Optional<String> getFilenameByApiName(String type) {
         return findByType(type).map(Configuration::getFilename);
     }
 
+    public Optional<String> getApiNameByFilename(String filename) {
+        return configurations.stream()
+                .filter(conf -> conf.getFilename().equals(filename))
+                .map(Configuration::getType)
+                .findFirst();
+    }
+
     public Optional<String> getConfiguration(String apiName) {
+        return getConfigurationSnapshot(apiName).flatMap(snapshot -> {
+            if (!snapshot.isStreamed()) {
+                return Optional.of(new String(snapshot.getContent(), StandardCharsets.UTF_8));
+            }
+            try {
+                return Optional.of(Files.readString(snapshot.getPath(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                log.error("Error reading resource file: {}", e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    public Optional<ConfigurationSnapshot> getConfigurationSnapshot(String apiName) {
 
         Optional<String> filenameByApiName = getFilenameByApiName(apiName);
         if (filenameByApiName.isEmpty()) {
             return Optional.empty();
         } else {
             Path filePath = resolveResourcePath(filenameByApiName.get());
+            ConfigurationSnapshot cached = configurationCache.get(filePath);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
             log.info("Reading {}, file:{}",apiName,filePath.toAbsolutePath());
             try {
-                StringBuilder buf = new StringBuilder();
-                try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        buf.append(line).append(System.lineSeparator());
-                    }
+                long stamp = configurationCache.currentStamp();
+                ConfigurationSnapshot snapshot = loadSnapshot(filePath);
+                if (configurationCache.isWatching()) {
+                    configurationCache.put(filePath, snapshot, stamp);
                 }
-                return Optional.of(buf.toString());
+                return Optional.of(snapshot);
             } catch (Exception e) {
                 log.error("Error reading resource file: {}", e.getMessage());
                 return Optional.empty();
@@ -85,27 +139,100 @@ public Optional<String> getConfiguration(String apiName) {
 
     }
 
-    public void saveConfiguration(MultipartFile file, String apiName) throws IOException {
+    public void saveConfiguration(MultipartFile file, String apiName, ConfigurationValidator validator) throws IOException {
 
         Optional<String> filenameByApiName = getFilenameByApiName(apiName);
         if (filenameByApiName.isPresent()) {
-            Path filePath = resolveResourcePath(filenameByApiName.get());
-            log.info("Writing {}, file:{}",apiName,filePath.toAbsolutePath());
+            log.info("Writing {}, file:{}",apiName,resolveResourcePath(filenameByApiName.get()).toAbsolutePath());
+
+            // Stage the upload on the same file system as the target, hashing it on the way so content seen before
+            // skips validation; the staged copy is re-read only on a miss
+            Path tempFile = Files.createTempFile(resourceDirectory, "." + filenameByApiName.get(), ".tmp");
+            try {
+                MessageDigest digest = ContentHash.newDigest();
+                try (InputStream inputStream = file.getInputStream();
+                     OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                    inputStream.transferTo(outputStream);
+                }
+                String contentHash = ContentHash.toHex(digest.digest());
+                boolean valid = validationResultCache.isValid(ProductName.fromString(apiName), contentHash, () -> {
+                    try (InputStream stagedContent = Files.newInputStream(tempFile)) {
+                        return validator.isValid(stagedContent);
+                    }
+                });
+                if (!valid) {
+                    log.error("Invalid file content for API: {}", apiName);
+                    throw new InvalidConfigurationException("Invalid file content for api: " + apiName);
+                }
+
+                // Writers of the same type are serialized and wait for a running import to publish its generation;
+                // readers never take either lock and see either version
+                Lock importLock = generationService.getImportLock().readLock();
+                ReentrantLock writeLock = writeLocks.computeIfAbsent(apiName, type -> new ReentrantLock());
+                importLock.lock();
+                writeLock.lock();
+                try {
+                    Path filePath = resolveResourcePath(filenameByApiName.get());
+                    // Check if the file already exists and archive it; the archive is shared by all generations
+                    if (Files.exists(filePath)) {
+                        archivingService.archiveFile(filePath, archivingService.archiveDirectoryFor(resourceDirectory));
+                    }
 
-            // Check if the file already exists and archive it
-            if (Files.exists(filePath)) {
-                archivingService.archiveFile(filePath);
+                    Files.move(tempFile, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    configurationCache.invalidate(filePath);
+                } finally {
+                    writeLock.unlock();
+                    importLock.unlock();
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
             }
+        }
+    }
+
+    private ConfigurationSnapshot loadSnapshot(Path filePath) throws IOException {
+        // A rollback restores older modification times; Last-Modified and delta exports must still move forward
+        long lastModified = Math.max(Files.getLastModifiedTime(filePath).toMillis(),
+                generationService.changedAt(filePath.getFileName().toString()));
+        long size = Files.size(filePath);
+        if (size > maxInMemoryBytes) {
+            // Large files are never buffered on the heap, only their size and hash are kept
+            String contentHash = ContentHash.sha256Hex(filePath);
+            return ConfigurationSnapshot.streamed(filePath, size, lastModified, contentHash,
+                    compressToSidecar(filePath, contentHash, size));
+        }
+        byte[] content = Files.readAllBytes(filePath);
+        byte[] gzipContent = Gzip.compress(content);
+        return ConfigurationSnapshot.inMemory(filePath, content, lastModified,
+                gzipContent.length < content.length ? gzipContent : null);
+    }
 
-            // Copy the new file
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
+    private Path compressToSidecar(Path filePath, String contentHash, long size) {
+        String filename = filePath.getFileName().toString();
+        Path compressedDirectory = resourceDirectory.resolve(COMPRESSED_SUBDIRECTORY);
+        Path gzipPath = compressedDirectory.resolve(filename + "." + contentHash + ".gz");
+        try {
+            if (Files.notExists(gzipPath)) {
+                Files.createDirectories(compressedDirectory);
+                Gzip.compress(filePath, gzipPath);
+                // Drop variants of older versions of the same file
+                try (DirectoryStream<Path> stale = Files.newDirectoryStream(compressedDirectory, filename + ".*.gz")) {
+                    for (Path path : stale) {
+                        if (!path.equals(gzipPath)) {
+                            Files.deleteIfExists(path);
+                        }
+                    }
+                }
             }
+            return Files.size(gzipPath) < size ? gzipPath : null;
+        } catch (IOException e) {
+            log.warn("Unable to build gzip variant of {}: {}", filePath, e.getMessage());
+            return null;
         }
     }
 
     private Path resolveResourcePath(String resourcePath) {
-        return resourceDirectory.resolve(resourcePath);
+        return generationService.currentDirectory().resolve(resourcePath);
     }
 
 }
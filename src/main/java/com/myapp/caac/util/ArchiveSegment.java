@@ -0,0 +1,187 @@
+package com.myapp.caac.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Many archived versions packed into one file. Every version is its own gzip member, so the data file is plain
+// (multi-member) gzip, and a version is read by seeking to its offset in the .idx file and inflating one member.
+// The index is written last: a data file without one is an interrupted compaction and is never read.
+public final class ArchiveSegment {
+
+    public static final String DATA_EXTENSION = ".gz";
+    public static final String INDEX_EXTENSION = ".idx";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ArchiveSegment() {
+    }
+
+    public static Path indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - DATA_EXTENSION.length()) + INDEX_EXTENSION);
+    }
+
+    // One tab-separated line per version: name, timestamp, offset, compressed length, size
+    public static List<Entry> readIndex(Path segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(indexOf(segment), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 5) {
+                    throw new IOException("Corrupt archive segment index " + indexOf(segment) + ": " + line);
+                }
+                entries.add(new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt archive segment index " + indexOf(segment), e);
+        }
+        return entries;
+    }
+
+    public static InputStream open(Path segment, Entry entry) throws IOException {
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+        try {
+            channel.position(entry.offset());
+            InputStream member = new BoundedInputStream(Channels.newInputStream(channel), entry.length());
+            return new GZIPInputStream(member, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static Writer create(Path segment) throws IOException {
+        return new Writer(segment);
+    }
+
+    public record Entry(String name, long timestamp, long offset, long length, long size) {
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final Path segment;
+        private final Path tempFile;
+        private final OutputStream file;
+        // Closing a gzip member closes this too, but never the file underneath
+        private final CountingOutputStream data;
+        private final List<Entry> entries = new ArrayList<>();
+        private boolean finished;
+
+        private Writer(Path segment) throws IOException {
+            this.segment = segment;
+            this.tempFile = Files.createTempFile(segment.getParent(), segment.getFileName().toString(), ".tmp");
+            this.file = Files.newOutputStream(tempFile);
+            this.data = new CountingOutputStream(file);
+        }
+
+        public void add(String name, long timestamp, Path source) throws IOException {
+            long offset = data.count();
+            long size;
+            try (OutputStream gzip = new GZIPOutputStream(data, BUFFER_SIZE)) {
+                size = Files.copy(source, gzip);
+            }
+            entries.add(new Entry(name, timestamp, offset, data.count() - offset, size));
+        }
+
+        // Copies an already compressed version from another segment without inflating it
+        public void copy(Path sourceSegment, Entry entry) throws IOException {
+            long offset = data.count();
+            try (FileChannel channel = FileChannel.open(sourceSegment, StandardOpenOption.READ)) {
+                channel.position(entry.offset());
+                new BoundedInputStream(Channels.newInputStream(channel), entry.length()).transferTo(data);
+            }
+            entries.add(new Entry(entry.name(), entry.timestamp(), offset, entry.length(), entry.size()));
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public List<Entry> finish() throws IOException {
+            file.close();
+            Files.move(tempFile, segment, StandardCopyOption.ATOMIC_MOVE);
+            Path index = indexOf(segment);
+            Path indexTemp = Files.createTempFile(segment.getParent(), index.getFileName().toString(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(indexTemp, StandardCharsets.UTF_8)) {
+                    for (Entry entry : entries) {
+                        writer.write(entry.name() + "\t" + entry.timestamp() + "\t" + entry.offset() + "\t"
+                                + entry.length() + "\t" + entry.size() + "\n");
+                    }
+                }
+                Files.move(indexTemp, index, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(indexTemp);
+            }
+            finished = true;
+            return List.copyOf(entries);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                file.close();
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private static final class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
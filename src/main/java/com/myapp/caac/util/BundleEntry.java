@@ -0,0 +1,61 @@
+package com.myapp.caac.util;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+@Getter
+public class BundleEntry {
+
+    private final String name;
+    // Exactly one of content and file is set
+    private final byte[] content;
+    private final Path file;
+
+    private BundleEntry(String name, byte[] content, Path file) {
+        this.name = name;
+        this.content = content;
+        this.file = file;
+    }
+
+    public static BundleEntry ofBytes(String name, byte[] content) {
+        return new BundleEntry(name, content, null);
+    }
+
+    public static BundleEntry ofFile(String name, Path file) {
+        return new BundleEntry(name, null, file);
+    }
+
+    public long size() throws IOException {
+        return content != null ? content.length : Files.size(file);
+    }
+
+    public long crc32() throws IOException {
+        CRC32 crc = new CRC32();
+        if (content != null) {
+            crc.update(content);
+            return crc.getValue();
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (content != null) {
+            out.write(content);
+        } else {
+            Files.copy(file, out);
+        }
+    }
+}
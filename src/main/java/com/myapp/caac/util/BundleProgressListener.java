@@ -0,0 +1,11 @@
+package com.myapp.caac.util;
+
+@FunctionalInterface
+public interface BundleProgressListener {
+
+    BundleProgressListener NONE = (entry, size, sha256) -> {
+    };
+
+    // Called on the writing thread once the entry is fully written; size and sha256 describe its uncompressed content
+    void entryWritten(BundleEntry entry, long size, String sha256);
+}
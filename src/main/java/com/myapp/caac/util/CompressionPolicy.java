@@ -0,0 +1,50 @@
+package com.myapp.caac.util;
+
+import com.myapp.caac.enums.CompressionProfile;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+// Decides per entry whether it is deflated at the profile's level or stored as is
+@Getter
+public class CompressionPolicy {
+
+    private final CompressionProfile profile;
+    private final long storeBelowBytes;
+    private final Set<String> storedExtensions;
+
+    public CompressionPolicy(CompressionProfile profile, long storeBelowBytes, Set<String> storedExtensions) {
+        this.profile = profile;
+        this.storeBelowBytes = storeBelowBytes;
+        this.storedExtensions = storedExtensions;
+    }
+
+    public int getLevel() {
+        return profile.getLevel();
+    }
+
+    // A file the policy would store is deflated at level 0 instead: still uncompressed, but its CRC follows the data,
+    // so it is read once and a save cannot change it between a checksum pass and the copy
+    public int methodFor(BundleEntry entry) throws IOException {
+        return isStored(entry) && entry.getFile() == null ? ZipEntry.STORED : ZipEntry.DEFLATED;
+    }
+
+    public int levelFor(BundleEntry entry) throws IOException {
+        return isStored(entry) ? Deflater.NO_COMPRESSION : profile.getLevel();
+    }
+
+    private boolean isStored(BundleEntry entry) throws IOException {
+        return profile == CompressionProfile.STORE
+                || entry.size() < storeBelowBytes
+                || storedExtensions.contains(extensionOf(entry.getName()));
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
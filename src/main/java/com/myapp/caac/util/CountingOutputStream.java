@@ -0,0 +1,36 @@
+package com.myapp.caac.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Counts bytes passed through; closing it leaves the underlying stream open
+public class CountingOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private long count;
+
+    public CountingOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        out.write(buffer, offset, length);
+        count += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,37 @@
+package com.myapp.caac.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+public final class Gzip {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Gzip() {
+    }
+
+    public static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, BUFFER_SIZE)) {
+            gzip.write(content);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static void compress(Path source, Path target) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE)) {
+                Files.copy(source, out);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
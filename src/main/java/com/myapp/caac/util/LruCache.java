@@ -0,0 +1,132 @@
+package com.myapp.caac.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    // Told about every value evicted or replaced by put, after the cache's lock has been released
+    private final BiConsumer<K, V> evictionListener;
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        this(maxEntries, maxWeight, weigher, (key, value) -> {
+        });
+    }
+
+    public LruCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher, BiConsumer<K, V> evictionListener) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    // Returns false when the value alone exceeds the weight bound and was not stored
+    public boolean put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            return false;
+        }
+        List<Map.Entry<K, V>> removed = new ArrayList<>(1);
+        synchronized (this) {
+            V previous = entries.put(key, value);
+            if (previous != null) {
+                weight -= weigher.applyAsLong(previous);
+                removed.add(Map.entry(key, previous));
+            }
+            weight += valueWeight;
+            evictIfNeeded(removed);
+        }
+        removed.forEach(entry -> evictionListener.accept(entry.getKey(), entry.getValue()));
+        return true;
+    }
+
+    public synchronized V invalidate(K key) {
+        V previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        return previous;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("maxEntries", maxEntries);
+            stats.put("weight", weight);
+            stats.put("maxWeight", maxWeight);
+        }
+        stats.put("hits", hitCount());
+        stats.put("misses", missCount());
+        stats.put("hitRatio", hitRatio());
+        stats.put("evictions", evictionCount());
+        return stats;
+    }
+
+    private void evictIfNeeded(List<Map.Entry<K, V>> evicted) {
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            iterator.remove();
+            weight -= weigher.applyAsLong(eldest.getValue());
+            evictions.incrementAndGet();
+            evicted.add(Map.entry(eldest.getKey(), eldest.getValue()));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.myapp.caac.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+// Deflates entries concurrently, each with its own Deflater, and writes them into one ZIP in their original order.
+// Stored entries, always held in memory, are only checksummed up front and copied while writing.
+// Only the classic (non-ZIP64) format is produced, so callers must keep entries and sizes within its limits.
+public class ParallelZipWriter {
+
+    public static final long MAX_ENTRY_SIZE = 0xFFFFFFFFL - 1;
+    public static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int UTF8_NAMES_FLAG = 0x0800;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Executor executor;
+    // Entries compressed ahead of the writer
+    private final int window;
+    // Source bytes of the entries in flight, which bounds their deflated output held in memory; an entry larger than
+    // this is still compressed, but alone
+    private final long maxBufferedBytes;
+
+    public ParallelZipWriter(Executor executor, int window, long maxBufferedBytes) {
+        this.executor = executor;
+        this.window = Math.max(1, window);
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    public long getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    // trailer, if given, is asked for one last entry after all others have been written, e.g. a manifest of them
+    public void write(List<BundleEntry> entries, CompressionPolicy policy, OutputStream out,
+                      BundleProgressListener listener, Trailer trailer) throws IOException {
+        CountingOutputStream zip = new CountingOutputStream(out);
+        List<CentralDirectoryRecord> records = new ArrayList<>(entries.size());
+        Deque<InFlightEntry> pending = new ArrayDeque<>();
+        int[] dosDateTime = dosDateTime(LocalDateTime.now());
+
+        int next = 0;
+        long buffered = 0;
+        try {
+            while (next < entries.size() || !pending.isEmpty()) {
+                while (next < entries.size() && pending.size() < window
+                        && (pending.isEmpty() || buffered + entries.get(next).size() <= maxBufferedBytes)) {
+                    BundleEntry entry = entries.get(next++);
+                    long bytes = entry.size();
+                    buffered += bytes;
+                    pending.add(new InFlightEntry(CompletableFuture.supplyAsync(() -> compress(entry, policy), executor), bytes));
+                }
+                InFlightEntry inFlight = pending.poll();
+                CompressedEntry compressed = await(inFlight.future());
+                long offset = zip.count();
+                writeLocalHeader(zip, compressed, dosDateTime);
+                String sha256 = writeData(zip, compressed);
+                records.add(new CentralDirectoryRecord(compressed, offset));
+                listener.entryWritten(compressed.source(), compressed.size(), sha256);
+                buffered -= inFlight.bytes();
+            }
+        } finally {
+            pending.forEach(inFlight -> inFlight.future().cancel(true));
+        }
+
+        BundleEntry trailingEntry = trailer != null ? trailer.get() : null;
+        if (trailingEntry != null) {
+            CompressedEntry compressed = compressOrThrow(trailingEntry, policy);
+            long offset = zip.count();
+            writeLocalHeader(zip, compressed, dosDateTime);
+            writeData(zip, compressed);
+            records.add(new CentralDirectoryRecord(compressed, offset));
+        }
+
+        long centralDirectoryOffset = zip.count();
+        if (centralDirectoryOffset > MAX_ENTRY_SIZE) {
+            throw new IOException("Bundle too large for a non-ZIP64 archive");
+        }
+        for (CentralDirectoryRecord record : records) {
+            writeCentralHeader(zip, record, dosDateTime);
+        }
+        long centralDirectorySize = zip.count() - centralDirectoryOffset;
+        writeInt(zip, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(zip, 0);
+        writeShort(zip, 0);
+        writeShort(zip, records.size());
+        writeShort(zip, records.size());
+        writeInt(zip, centralDirectorySize);
+        writeInt(zip, centralDirectoryOffset);
+        writeShort(zip, 0);
+        zip.flush();
+    }
+
+    private CompressedEntry compress(BundleEntry entry, CompressionPolicy policy) {
+        try {
+            return compressOrThrow(entry, policy);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompressedEntry compressOrThrow(BundleEntry entry, CompressionPolicy policy) throws IOException {
+        byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+        if (policy.methodFor(entry) == ZipEntry.STORED) {
+            long size = entry.size();
+            if (size > MAX_ENTRY_SIZE) {
+                throw new IOException("Entry too large for a non-ZIP64 archive: " + entry.getName());
+            }
+            return new CompressedEntry(name, ZipEntry.STORED, entry.crc32(), size, size, null, null, entry);
+        }
+        return deflate(entry, name, policy.levelFor(entry));
+    }
+
+    private CompressedEntry deflate(BundleEntry entry, byte[] name, int level) throws IOException {
+        CRC32 crc = new CRC32();
+        MessageDigest digest = ContentHash.newDigest();
+        Deflater deflater = new Deflater(level, true);
+        try (InputStream in = entry.getContent() != null ? null : Files.newInputStream(entry.getFile())) {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            byte[] output = new byte[BUFFER_SIZE];
+            long size = 0;
+            if (in == null) {
+                byte[] content = entry.getContent();
+                crc.update(content);
+                digest.update(content);
+                size = content.length;
+                deflater.setInput(content);
+                deflater.finish();
+            } else {
+                byte[] input = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(input)) != -1) {
+                    crc.update(input, 0, read);
+                    digest.update(input, 0, read);
+                    size += read;
+                    deflater.setInput(input, 0, read);
+                    while (!deflater.needsInput()) {
+                        data.write(output, 0, deflater.deflate(output));
+                    }
+                }
+                deflater.finish();
+            }
+            while (!deflater.finished()) {
+                data.write(output, 0, deflater.deflate(output));
+            }
+            if (size > MAX_ENTRY_SIZE || data.size() > MAX_ENTRY_SIZE) {
+                throw new IOException("Entry too large for a non-ZIP64 archive: " + entry.getName());
+            }
+            return new CompressedEntry(name, ZipEntry.DEFLATED, crc.getValue(), size, data.size(), data,
+                    ContentHash.toHex(digest.digest()), entry);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Returns the SHA-256 of the entry's uncompressed content
+    private static String writeData(CountingOutputStream zip, CompressedEntry entry) throws IOException {
+        if (entry.data() != null) {
+            entry.data().writeTo(zip);
+            return entry.sha256();
+        }
+        // The headers already carry the size and CRC read up front, so the copy must match them exactly
+        long start = zip.count();
+        CheckedOutputStream checked = new CheckedOutputStream(zip, new CRC32());
+        MessageDigest digest = ContentHash.newDigest();
+        entry.source().writeTo(new DigestOutputStream(checked, digest));
+        if (zip.count() - start != entry.size() || checked.getChecksum().getValue() != entry.crc()) {
+            throw new IOException("Entry changed while it was being bundled: " + entry.source().getName());
+        }
+        return ContentHash.toHex(digest.digest());
+    }
+
+    private CompressedEntry await(CompletableFuture<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing bundle", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Error compressing bundle entry", e.getCause());
+        }
+    }
+
+    private void writeLocalHeader(OutputStream out, CompressedEntry entry, int[] dosDateTime) throws IOException {
+        writeInt(out, LOCAL_HEADER_SIGNATURE);
+        writeShort(out, VERSION);
+        writeShort(out, UTF8_NAMES_FLAG);
+        writeShort(out, entry.method());
+        writeShort(out, dosDateTime[1]);
+        writeShort(out, dosDateTime[0]);
+        writeInt(out, entry.crc());
+        writeInt(out, entry.compressedSize());
+        writeInt(out, entry.size());
+        writeShort(out, entry.name().length);
+        writeShort(out, 0);
+        out.write(entry.name());
+    }
+
+    private void writeCentralHeader(OutputStream out, CentralDirectoryRecord record, int[] dosDateTime) throws IOException {
+        CompressedEntry entry = record.entry();
+        writeInt(out, CENTRAL_HEADER_SIGNATURE);
+        writeShort(out, VERSION);
+        writeShort(out, VERSION);
+        writeShort(out, UTF8_NAMES_FLAG);
+        writeShort(out, entry.method());
+        writeShort(out, dosDateTime[1]);
+        writeShort(out, dosDateTime[0]);
+        writeInt(out, entry.crc());
+        writeInt(out, entry.compressedSize());
+        writeInt(out, entry.size());
+        writeShort(out, entry.name().length);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeInt(out, 0);
+        writeInt(out, record.offset());
+        out.write(entry.name());
+    }
+
+    private static int[] dosDateTime(LocalDateTime time) {
+        int date = ((time.getYear() - 1980) << 9) | (time.getMonthValue() << 5) | time.getDayOfMonth();
+        int clock = (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+        return new int[]{date, clock};
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        writeShort(out, (int) (value & 0xFFFF));
+        writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+    }
+
+    @FunctionalInterface
+    public interface Trailer {
+        BundleEntry get() throws IOException;
+    }
+
+    // data and sha256 are null for stored entries, which are hashed while being copied from source instead
+    private record CompressedEntry(byte[] name, int method, long crc, long size, long compressedSize,
+                                   ByteArrayOutputStream data, String sha256, BundleEntry source) {
+    }
+
+    private record InFlightEntry(CompletableFuture<CompressedEntry> future, long bytes) {
+    }
+
+    private record CentralDirectoryRecord(CompressedEntry entry, long offset) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.myapp.caac.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes everything to both streams; closing it closes only the branch, the primary stream stays with its owner
+public class TeeOutputStream extends OutputStream {
+
+    private final OutputStream primary;
+    private final OutputStream branch;
+
+    public TeeOutputStream(OutputStream primary, OutputStream branch) {
+        this.primary = primary;
+        this.branch = branch;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        primary.write(b);
+        branch.write(b);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        primary.write(buffer, offset, length);
+        branch.write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        primary.flush();
+        branch.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        branch.close();
+    }
+}
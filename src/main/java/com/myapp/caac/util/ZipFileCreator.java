@@ -1,77 +1,149 @@
 package com.myapp.caac.util;
 
-import lombok.Data;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.enums.CompressionProfile;
+import com.myapp.caac.model.BundleManifest;
+import com.myapp.caac.model.ManifestEntry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-@Data
 @Slf4j
 @Service
 public class ZipFileCreator {
 
-    private final Path apiProcessingDirectory;
-    private final Path metadataDirectory;
+    private final long parallelThresholdBytes;
+    private final long storeBelowBytes;
+    private final Set<String> storedExtensions;
+    private final ThreadPoolExecutor compressionPool;
+    private final ParallelZipWriter parallelWriter;
+    private final ObjectMapper objectMapper;
 
-    public ZipFileCreator(@Value("${resource.basepath}") String basePath,
-                          @Value("${resource.directory}") String resourceDirectoryPath,
-                          @Value("${resource.metadata}") String metadataDirectory) {
-        if ("home".equalsIgnoreCase(basePath)) {
-            String homeDirectory = System.getProperty("user.home");
-            this.apiProcessingDirectory = Paths.get(homeDirectory, resourceDirectoryPath);
-        } else if ("project".equalsIgnoreCase(basePath)) {
-            this.apiProcessingDirectory = Paths.get(resourceDirectoryPath);
-        } else {
-            throw new IllegalArgumentException("Invalid value for resource.basepath");
+    public ZipFileCreator(ObjectMapper objectMapper,
+                          @Value("${export.bundle.compression.threads:0}") int threads,
+                          @Value("${export.bundle.compression.parallel-threshold-bytes:4194304}") long parallelThresholdBytes,
+                          @Value("${export.bundle.compression.max-buffered-bytes:67108864}") long maxBufferedBytes,
+                          @Value("${export.bundle.compression.store-below-bytes:512}") long storeBelowBytes,
+                          @Value("${export.bundle.compression.stored-extensions:zip,gz,jar,png,jpg,jpeg}") String[] storedExtensions) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Caller-runs keeps the request thread compressing instead of failing once the queue is full
+        this.compressionPool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bundle-compression-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.compressionPool.allowCoreThreadTimeOut(true);
+        this.parallelWriter = new ParallelZipWriter(compressionPool, poolSize * 2, maxBufferedBytes);
+        this.objectMapper = objectMapper;
+        this.parallelThresholdBytes = parallelThresholdBytes;
+        this.storeBelowBytes = storeBelowBytes;
+        this.storedExtensions = Arrays.stream(storedExtensions)
+                .map(extension -> extension.trim().toLowerCase(Locale.ROOT))
+                .filter(extension -> !extension.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public CompressionPolicy policy(String profile) {
+        return new CompressionPolicy(CompressionProfile.fromString(profile), storeBelowBytes, storedExtensions);
+    }
+
+    // Streams the bundle straight into out; nothing is staged on disk
+    public void writeZip(List<BundleEntry> entries, CompressionPolicy policy, OutputStream out) throws IOException {
+        writeZip(entries, policy, out, BundleProgressListener.NONE);
+    }
+
+    // Each entry's size and SHA-256 are taken while it is written and listed in a trailing manifest.json
+    public void writeZip(List<BundleEntry> entries, CompressionPolicy policy, OutputStream out,
+                         BundleProgressListener listener) throws IOException {
+        List<ManifestEntry> manifest = new ArrayList<>(entries.size());
+        BundleProgressListener recorder = (entry, size, sha256) -> {
+            manifest.add(new ManifestEntry(entry.getName(), size, sha256));
+            listener.entryWritten(entry, size, sha256);
+        };
+        if (isWorthParallelizing(entries)) {
+            log.info("Compressing {} bundle entries in parallel ({})", entries.size(), policy.getProfile().getId());
+            parallelWriter.write(entries, policy, out, recorder, () -> manifestEntry(manifest));
+            return;
+        }
+        ZipOutputStream zos = new ZipOutputStream(out);
+        for (BundleEntry entry : entries) {
+            log.info("File added to ZIP: " + entry.getName());
+            zos.setLevel(policy.levelFor(entry));
+            zos.putNextEntry(zipEntry(entry, policy));
+            MessageDigest digest = ContentHash.newDigest();
+            CountingOutputStream counter = new CountingOutputStream(zos);
+            entry.writeTo(new DigestOutputStream(counter, digest));
+            zos.closeEntry();
+            recorder.entryWritten(entry, counter.count(), ContentHash.toHex(digest.digest()));
         }
-        this.metadataDirectory = Paths.get("src", "main", "resources", metadataDirectory);
+        BundleEntry manifestEntry = manifestEntry(manifest);
+        zos.setLevel(policy.levelFor(manifestEntry));
+        zos.putNextEntry(zipEntry(manifestEntry, policy));
+        manifestEntry.writeTo(zos);
+        zos.closeEntry();
+        // Finish rather than close, the caller owns the underlying stream
+        zos.finish();
+        zos.flush();
     }
 
-    public Path createZipFile(Map<String, String> fileNames, String zipFileName) {
-        List<String> addedFiles = new ArrayList<>();
-        Path zipFile = apiProcessingDirectory.resolve(zipFileName);
-        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipFile))) {
-            for (Map.Entry<String, String> fileName : fileNames.entrySet()) {
-                addFileToZip(apiProcessingDirectory, fileName.getKey(), zos, addedFiles);
-                addFileToZip(metadataDirectory, fileName.getValue(), zos, addedFiles);
-            }
+    @PreDestroy
+    public void close() {
+        compressionPool.shutdownNow();
+    }
 
-            addFileToZip(metadataDirectory, "root_metadata.json", zos, addedFiles);
+    private BundleEntry manifestEntry(List<ManifestEntry> manifest) throws IOException {
+        return BundleEntry.ofBytes(BundleManifest.FILE_NAME, objectMapper.writeValueAsBytes(new BundleManifest(manifest)));
+    }
 
-            if (Files.exists(zipFile)) {
-                log.info("ZIP file created successfully: " + zipFileName);
-                log.info("Files added to ZIP: " + String.join(", ", addedFiles));
-                return zipFile;
-            } else {
-                log.error("Error creating Zip file: " + zipFileName);
-            }
-        } catch (IOException e) {
-            log.error("Error occurred while creating ZIP: ", e);
+    private static ZipEntry zipEntry(BundleEntry entry, CompressionPolicy policy) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(entry.getName());
+        if (policy.methodFor(entry) == ZipEntry.STORED) {
+            // ZipOutputStream needs the size and CRC of a stored entry before its data; only in-memory entries are stored
+            long size = entry.size();
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(size);
+            zipEntry.setCompressedSize(size);
+            zipEntry.setCrc(entry.crc32());
         }
-        return zipFile;
+        return zipEntry;
     }
 
-    private void addFileToZip(Path baseDir, String fileName, ZipOutputStream zos, List<String> addedFiles) throws IOException {
-        Path filePath = baseDir.resolve(fileName);
-        if (Files.exists(filePath)) {
-            addedFiles.add(filePath.getFileName().toString());
-            log.info("File added to ZIP: " + filePath.toAbsolutePath());
-            ZipEntry zipEntry = new ZipEntry(filePath.getFileName().toString());
-            zos.putNextEntry(zipEntry);
-            zos.write(Files.readAllBytes(filePath));
-            zos.closeEntry();
-        } else {
-            log.error("File not found: " + filePath.toAbsolutePath());
+    // Small bundles compress faster on one thread than they take to hand off; oversized ones need ZIP64, and an entry
+    // larger than the parallel writer may buffer is better streamed
+    private boolean isWorthParallelizing(List<BundleEntry> entries) throws IOException {
+        if (entries.size() < 2 || entries.size() >= ParallelZipWriter.MAX_ENTRIES) {
+            return false;
+        }
+        long total = 0;
+        for (BundleEntry entry : entries) {
+            long size = entry.size();
+            if (size > ParallelZipWriter.MAX_ENTRY_SIZE || size > parallelWriter.getMaxBufferedBytes()) {
+                return false;
+            }
+            total += size;
         }
+        return total >= parallelThresholdBytes && total <= ParallelZipWriter.MAX_ENTRY_SIZE / 2;
     }
 }
@@ -4,12 +4,27 @@
 import com.myapp.caac.enums.ContentType;
 import com.myapp.caac.validations.content.ContentValidator;
 import com.myapp.caac.validations.content.ContentValidatorFactory;
+import com.myapp.caac.validations.schema.CompiledSchema;
+import com.myapp.caac.validations.schema.SchemaValidator;
+
+import java.io.InputStream;
 
 public class ApiConfigurationValidator implements ConfigurationValidator {
+
+    private final ContentValidator validator = new ContentValidatorFactory().getValidator(ContentType.JSON);
+    private final CompiledSchema schema;
+
+    public ApiConfigurationValidator(CompiledSchema schema) {
+        this.schema = schema;
+    }
+
     @Override
     public boolean isValid(String content) {
-        ContentValidatorFactory factory = new ContentValidatorFactory();
-        ContentValidator validator = factory.getValidator(ContentType.JSON);
-        return validator.isValid(content);
+        return validator.isValid(content, new SchemaValidator(schema));
+    }
+
+    @Override
+    public boolean isValid(InputStream content) {
+        return validator.isValid(content, new SchemaValidator(schema));
     }
 }
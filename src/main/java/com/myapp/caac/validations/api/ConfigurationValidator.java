@@ -1,5 +1,9 @@
 package com.myapp.caac.validations.api;
 
+import java.io.InputStream;
+
 public interface ConfigurationValidator {
     boolean isValid(String content);
-}
\ No newline at end of file
+
+    boolean isValid(InputStream content);
+}
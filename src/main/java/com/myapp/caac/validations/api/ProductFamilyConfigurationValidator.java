@@ -3,13 +3,27 @@
 import com.myapp.caac.enums.ContentType;
 import com.myapp.caac.validations.content.ContentValidator;
 import com.myapp.caac.validations.content.ContentValidatorFactory;
+import com.myapp.caac.validations.schema.CompiledSchema;
+import com.myapp.caac.validations.schema.SchemaValidator;
+
+import java.io.InputStream;
 
 public class ProductFamilyConfigurationValidator implements ConfigurationValidator {
 
+    private final ContentValidator validator = new ContentValidatorFactory().getValidator(ContentType.YAML);
+    private final CompiledSchema schema;
+
+    public ProductFamilyConfigurationValidator(CompiledSchema schema) {
+        this.schema = schema;
+    }
+
     @Override
     public boolean isValid(String content) {
-        ContentValidatorFactory factory = new ContentValidatorFactory();
-        ContentValidator validator = factory.getValidator(ContentType.YAML);
-        return validator.isValid(content);
+        return validator.isValid(content, new SchemaValidator(schema));
+    }
+
+    @Override
+    public boolean isValid(InputStream content) {
+        return validator.isValid(content, new SchemaValidator(schema));
     }
 }
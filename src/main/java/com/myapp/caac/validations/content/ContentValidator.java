@@ -1,5 +1,16 @@
 package com.myapp.caac.validations.content;
 
+import com.myapp.caac.validations.schema.StructureListener;
+
+import java.io.InputStream;
+
 public interface ContentValidator {
     boolean isValid(String content);
+
+    boolean isValid(InputStream content);
+
+    // Same syntax check, additionally reporting the document structure to the listener in the same pass
+    boolean isValid(String content, StructureListener listener);
+
+    boolean isValid(InputStream content, StructureListener listener);
 }
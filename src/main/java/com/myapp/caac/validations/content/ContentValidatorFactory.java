@@ -4,9 +4,13 @@
 
 public class ContentValidatorFactory {
 
+    // Validators are stateless, so one instance per content type is shared
+    private static final ContentValidator YAML_VALIDATOR = new YamlContentValidator();
+    private static final ContentValidator JSON_VALIDATOR = new JsonContentValidator();
+
     public ContentValidator getValidator(ContentType contentType) {
         return switch (contentType) {
-            case YAML -> new YamlContentValidator();
-            case JSON -> new JsonContentValidator();
+            case YAML -> YAML_VALIDATOR;
+            case JSON -> JSON_VALIDATOR;
         };
     }}
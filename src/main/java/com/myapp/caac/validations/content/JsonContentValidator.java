@@ -1,17 +1,103 @@
 package com.myapp.caac.validations.content;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.myapp.caac.validations.schema.JsonType;
+import com.myapp.caac.validations.schema.StructureListener;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 public class JsonContentValidator implements ContentValidator {
 
+    // Thread-safe and shared; the caller owns the stream, e.g. to drain the rest of an upload after validation
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+
     @Override
     public boolean isValid(String content) {
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.readTree(content);
-            return true;
-        } catch (Exception e) {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            return isValid(parser);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isValid(InputStream content) {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            return isValid(parser);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isValid(String content, StructureListener listener) {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            return isValid(parser, listener);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isValid(InputStream content, StructureListener listener) {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            return isValid(parser, listener);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean isValid(JsonParser parser) throws IOException {
+        if (parser.nextToken() == null) {
+            return false;
+        }
+        // Tokenizes the whole root value without building a tree
+        parser.skipChildren();
+        return true;
+    }
+
+    private boolean isValid(JsonParser parser, StructureListener listener) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
             return false;
         }
+        int depth = 0;
+        do {
+            switch (token) {
+                case START_OBJECT -> {
+                    listener.startObject();
+                    depth++;
+                }
+                case END_OBJECT -> {
+                    listener.endObject();
+                    depth--;
+                }
+                case START_ARRAY -> {
+                    listener.startArray();
+                    depth++;
+                }
+                case END_ARRAY -> {
+                    listener.endArray();
+                    depth--;
+                }
+                case FIELD_NAME -> listener.fieldName(parser.currentName());
+                case VALUE_STRING -> listener.scalar(JsonType.STRING);
+                case VALUE_NUMBER_INT -> listener.scalar(JsonType.INTEGER);
+                case VALUE_NUMBER_FLOAT -> listener.scalar(JsonType.NUMBER);
+                case VALUE_TRUE, VALUE_FALSE -> listener.scalar(JsonType.BOOLEAN);
+                case VALUE_NULL -> listener.scalar(JsonType.NULL);
+                default -> listener.anyValue();
+            }
+            if (!listener.isValid()) {
+                return false;
+            }
+        } while (depth > 0 && (token = parser.nextToken()) != null);
+        return depth == 0;
     }
 }
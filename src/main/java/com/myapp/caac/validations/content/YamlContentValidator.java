@@ -1,18 +1,224 @@
 package com.myapp.caac.validations.content;
 
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.parser.ParserException;
+import com.myapp.caac.validations.schema.JsonType;
+import com.myapp.caac.validations.schema.StructureListener;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+import org.yaml.snakeyaml.resolver.Resolver;
 
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+// Checks YAML by walking parser events instead of composing nodes, constructing only explicitly tagged scalars.
+// It rejects what Yaml.load rejects, except merge keys whose value is not a mapping, recursive keys, and !!omap or
+// !!pairs entries that are not single-key mappings. A listener sees aliases as values of unknown type and merge keys
+// as fields named <<, which the shipped schemas, checking only the root type, never look into.
 public class YamlContentValidator implements ContentValidator {
 
+    // Only read by the parser and resolver, so one instance of each is shared across threads
+    private static final LoaderOptions LOADER_OPTIONS = new LoaderOptions();
+    private static final Resolver RESOLVER = new Resolver();
+    private static final Set<Tag> MAPPING_TAGS = Set.of(Tag.MAP, Tag.SET);
+    private static final Set<Tag> SEQUENCE_TAGS = Set.of(Tag.SEQ, Tag.OMAP, Tag.PAIRS);
+
     @Override
     public boolean isValid(String content) {
+        return isValid(new StreamReader(content), null);
+    }
+
+    @Override
+    public boolean isValid(InputStream content) {
+        return isValid(new StreamReader(new UnicodeReader(content)), null);
+    }
+
+    @Override
+    public boolean isValid(String content, StructureListener listener) {
+        return isValid(new StreamReader(content), listener);
+    }
+
+    @Override
+    public boolean isValid(InputStream content, StructureListener listener) {
+        return isValid(new StreamReader(new UnicodeReader(content)), listener);
+    }
+
+    private boolean isValid(StreamReader reader, StructureListener listener) {
         try {
-            Yaml yaml = new Yaml();
-            Object parsedContent = yaml.load(content);
-            return parsedContent != null;
-        } catch (ParserException e) {
+            Parser parser = new ParserImpl(reader, LOADER_OPTIONS);
+            Set<String> anchors = null;
+            // Holds per-call state, so each validation builds its own when it first meets a tagged scalar
+            ScalarConstructor constructor = null;
+            int documents = 0;
+            boolean expectRoot = false;
+            // Per nesting depth: whether it is a mapping, and whether its next node is a key
+            int depth = 0;
+            BitSet mapping = new BitSet();
+            BitSet keyNext = new BitSet();
+            // Depth of a non-scalar mapping key whose contents are not reported to the listener
+            int suppressedDepth = -1;
+            while (!parser.checkEvent(Event.ID.StreamEnd)) {
+                Event event = parser.getEvent();
+                if (event.is(Event.ID.DocumentStart)) {
+                    if (++documents > 1) {
+                        return false;
+                    }
+                    expectRoot = true;
+                } else if (event instanceof NodeEvent node) {
+                    if (event instanceof AliasEvent alias) {
+                        if (expectRoot || anchors == null || !anchors.contains(alias.getAnchor())) {
+                            return false;
+                        }
+                    } else {
+                        if (expectRoot && event instanceof ScalarEvent scalar && isNull(scalar)) {
+                            return false;
+                        }
+                        if (event instanceof ScalarEvent scalar && isExplicitlyTagged(scalar.getTag())) {
+                            if (constructor == null) {
+                                constructor = new ScalarConstructor();
+                            }
+                            if (!constructor.constructs(scalar)) {
+                                return false;
+                            }
+                        } else if (event instanceof CollectionStartEvent collection && !hasResolvableTag(collection)) {
+                            return false;
+                        }
+                        if (node.getAnchor() != null) {
+                            if (anchors == null) {
+                                anchors = new HashSet<>();
+                            }
+                            anchors.add(node.getAnchor());
+                        }
+                    }
+                    expectRoot = false;
+
+                    boolean key = mapping.get(depth) && keyNext.get(depth);
+                    if (mapping.get(depth)) {
+                        keyNext.flip(depth);
+                    }
+                    if (listener != null && suppressedDepth < 0) {
+                        if (key) {
+                            listener.fieldName(event instanceof ScalarEvent scalar ? scalar.getValue() : "");
+                            if (!(event instanceof ScalarEvent) && !(event instanceof AliasEvent)) {
+                                suppressedDepth = depth;
+                            }
+                        } else {
+                            reportValue(event, listener);
+                        }
+                        if (!listener.isValid()) {
+                            return false;
+                        }
+                    }
+
+                    if (event.is(Event.ID.MappingStart)) {
+                        depth++;
+                        mapping.set(depth);
+                        keyNext.set(depth);
+                    } else if (event.is(Event.ID.SequenceStart)) {
+                        depth++;
+                        mapping.clear(depth);
+                    }
+                } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                    depth--;
+                    if (suppressedDepth >= 0) {
+                        if (depth == suppressedDepth) {
+                            suppressedDepth = -1;
+                        }
+                    } else if (listener != null) {
+                        if (event.is(Event.ID.MappingEnd)) {
+                            listener.endObject();
+                        } else {
+                            listener.endArray();
+                        }
+                        if (!listener.isValid()) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return documents == 1;
+        } catch (YAMLException e) {
             return false;
         }
     }
+
+    private void reportValue(Event event, StructureListener listener) {
+        if (event instanceof ScalarEvent scalar) {
+            listener.scalar(scalarType(scalar));
+        } else if (event.is(Event.ID.MappingStart)) {
+            listener.startObject();
+        } else if (event.is(Event.ID.SequenceStart)) {
+            listener.startArray();
+        } else {
+            listener.anyValue();
+        }
+    }
+
+    private JsonType scalarType(ScalarEvent scalar) {
+        Tag tag = tagOf(scalar);
+        if (Tag.INT.equals(tag)) {
+            return JsonType.INTEGER;
+        } else if (Tag.FLOAT.equals(tag)) {
+            return JsonType.NUMBER;
+        } else if (Tag.BOOL.equals(tag)) {
+            return JsonType.BOOLEAN;
+        } else if (Tag.NULL.equals(tag)) {
+            return JsonType.NULL;
+        }
+        return JsonType.STRING;
+    }
+
+    private boolean isNull(ScalarEvent scalar) {
+        return Tag.NULL.equals(tagOf(scalar));
+    }
+
+    private static boolean hasResolvableTag(CollectionStartEvent collection) {
+        if (!isExplicitlyTagged(collection.getTag())) {
+            return true;
+        }
+        Tag tag = new Tag(collection.getTag());
+        return collection.is(Event.ID.MappingStart) ? MAPPING_TAGS.contains(tag) : SEQUENCE_TAGS.contains(tag);
+    }
+
+    private static boolean isExplicitlyTagged(String tag) {
+        return tag != null && !"!".equals(tag);
+    }
+
+    private static Tag tagOf(ScalarEvent scalar) {
+        return isExplicitlyTagged(scalar.getTag())
+                ? new Tag(scalar.getTag())
+                : RESOLVER.resolve(NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar());
+    }
+
+    // Constructs single scalars as Yaml.load would, so an explicit tag that does not resolve fails the same way
+    private static final class ScalarConstructor extends SafeConstructor {
+
+        private ScalarConstructor() {
+            super(LOADER_OPTIONS);
+        }
+
+        private boolean constructs(ScalarEvent scalar) {
+            ScalarNode node = new ScalarNode(new Tag(scalar.getTag()), scalar.getValue(), scalar.getStartMark(),
+                    scalar.getEndMark(), scalar.getScalarStyle());
+            try {
+                getConstructor(node).construct(node);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package com.myapp.caac.validations.schema;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CompiledSchema {
+
+    public static final CompiledSchema ANY = new CompiledSchema(EnumSet.allOf(JsonType.class), Map.of(), List.of(), true, null);
+
+    private final Set<JsonType> types;
+    private final Map<String, CompiledSchema> properties;
+    private final List<String> required;
+    private final boolean additionalProperties;
+    private final CompiledSchema items;
+
+    public CompiledSchema(Set<JsonType> types, Map<String, CompiledSchema> properties, List<String> required,
+                          boolean additionalProperties, CompiledSchema items) {
+        this.types = types;
+        this.properties = properties;
+        this.required = required;
+        this.additionalProperties = additionalProperties;
+        this.items = items;
+    }
+
+    public boolean allows(JsonType type) {
+        return types.contains(type) || (type == JsonType.INTEGER && types.contains(JsonType.NUMBER));
+    }
+
+    // null when the property is not allowed at all
+    public CompiledSchema property(String name) {
+        CompiledSchema property = properties.get(name);
+        if (property != null) {
+            return property;
+        }
+        return additionalProperties ? ANY : null;
+    }
+
+    public List<String> getRequired() {
+        return required;
+    }
+
+    public CompiledSchema items() {
+        return items == null ? ANY : items;
+    }
+}
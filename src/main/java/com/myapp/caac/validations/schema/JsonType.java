@@ -0,0 +1,26 @@
+package com.myapp.caac.validations.schema;
+
+import java.util.Arrays;
+
+public enum JsonType {
+    OBJECT("object"),
+    ARRAY("array"),
+    STRING("string"),
+    INTEGER("integer"),
+    NUMBER("number"),
+    BOOLEAN("boolean"),
+    NULL("null");
+
+    private final String schemaName;
+
+    JsonType(String schemaName) {
+        this.schemaName = schemaName;
+    }
+
+    public static JsonType fromSchemaName(String schemaName) {
+        return Arrays.stream(values())
+                .filter(type -> type.schemaName.equals(schemaName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported schema type: " + schemaName));
+    }
+}
@@ -0,0 +1,86 @@
+package com.myapp.caac.validations.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Compiles the supported JSON Schema subset: type, properties, required, additionalProperties (boolean) and items.
+// Any other keyword is rejected rather than ignored, so a schema never validates less than it appears to.
+public class SchemaCompiler {
+
+    private static final Set<String> SUPPORTED_KEYWORDS = Set.of(
+            "type", "properties", "required", "additionalProperties", "items");
+    // Annotations with no effect on validation
+    private static final Set<String> ANNOTATION_KEYWORDS = Set.of(
+            "$schema", "$id", "$comment", "title", "description", "default", "examples");
+
+    public CompiledSchema compile(JsonNode schema) {
+        if (schema == null) {
+            return CompiledSchema.ANY;
+        }
+        if (!schema.isObject()) {
+            throw new IllegalArgumentException("Schema must be an object: " + schema);
+        }
+        schema.fieldNames().forEachRemaining(keyword -> {
+            if (!SUPPORTED_KEYWORDS.contains(keyword) && !ANNOTATION_KEYWORDS.contains(keyword)) {
+                throw new IllegalArgumentException("Unsupported schema keyword: " + keyword);
+            }
+        });
+
+        Set<JsonType> types = EnumSet.allOf(JsonType.class);
+        JsonNode typeNode = schema.get("type");
+        if (typeNode != null) {
+            types = EnumSet.noneOf(JsonType.class);
+            if (typeNode.isArray()) {
+                for (JsonNode type : typeNode) {
+                    types.add(JsonType.fromSchemaName(text("type", type)));
+                }
+            } else {
+                types.add(JsonType.fromSchemaName(text("type", typeNode)));
+            }
+        }
+
+        Map<String, CompiledSchema> properties = new HashMap<>();
+        JsonNode propertiesNode = schema.get("properties");
+        if (propertiesNode != null) {
+            if (!propertiesNode.isObject()) {
+                throw new IllegalArgumentException("properties must be an object: " + propertiesNode);
+            }
+            propertiesNode.fields().forEachRemaining(property ->
+                    properties.put(property.getKey(), compile(property.getValue())));
+        }
+
+        List<String> required = new ArrayList<>();
+        JsonNode requiredNode = schema.get("required");
+        if (requiredNode != null) {
+            if (!requiredNode.isArray()) {
+                throw new IllegalArgumentException("required must be an array: " + requiredNode);
+            }
+            requiredNode.forEach(name -> required.add(text("required", name)));
+        }
+
+        // Only the boolean form; a schema for additional properties would otherwise silently allow anything
+        JsonNode additionalNode = schema.get("additionalProperties");
+        if (additionalNode != null && !additionalNode.isBoolean()) {
+            throw new IllegalArgumentException("additionalProperties must be true or false: " + additionalNode);
+        }
+        boolean additionalProperties = additionalNode == null || additionalNode.booleanValue();
+
+        JsonNode itemsNode = schema.get("items");
+        CompiledSchema items = itemsNode == null ? null : compile(itemsNode);
+
+        return new CompiledSchema(types, Map.copyOf(properties), List.copyOf(required), additionalProperties, items);
+    }
+
+    private static String text(String keyword, JsonNode node) {
+        if (!node.isTextual()) {
+            throw new IllegalArgumentException(keyword + " must list strings: " + node);
+        }
+        return node.textValue();
+    }
+}
@@ -0,0 +1,122 @@
+package com.myapp.caac.validations.schema;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+// Checks a streamed document against a compiled schema; one instance per validation
+public class SchemaValidator implements StructureListener {
+
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private CompiledSchema next;
+    private boolean valid = true;
+
+    public SchemaValidator(CompiledSchema root) {
+        this.next = root;
+    }
+
+    @Override
+    public void startObject() {
+        stack.push(new Frame(beginValue(JsonType.OBJECT), true));
+    }
+
+    @Override
+    public void fieldName(String name) {
+        Frame frame = stack.peek();
+        if (frame == null) {
+            valid = false;
+            return;
+        }
+        CompiledSchema property = frame.schema.property(name);
+        if (property == null) {
+            valid = false;
+            property = CompiledSchema.ANY;
+        }
+        frame.markSeen(name);
+        next = property;
+    }
+
+    @Override
+    public void endObject() {
+        Frame frame = stack.pop();
+        if (!frame.allRequiredSeen()) {
+            valid = false;
+        }
+        afterValue();
+    }
+
+    @Override
+    public void startArray() {
+        CompiledSchema schema = beginValue(JsonType.ARRAY);
+        stack.push(new Frame(schema, false));
+        next = schema.items();
+    }
+
+    @Override
+    public void endArray() {
+        stack.pop();
+        afterValue();
+    }
+
+    @Override
+    public void scalar(JsonType type) {
+        beginValue(type);
+        afterValue();
+    }
+
+    @Override
+    public void anyValue() {
+        afterValue();
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    private CompiledSchema beginValue(JsonType type) {
+        CompiledSchema schema = next;
+        if (!schema.allows(type)) {
+            valid = false;
+        }
+        return schema;
+    }
+
+    private void afterValue() {
+        Frame parent = stack.peek();
+        if (parent != null && !parent.object) {
+            next = parent.schema.items();
+        }
+    }
+
+    private static final class Frame {
+        private final CompiledSchema schema;
+        private final boolean object;
+        private BitSet seen;
+
+        private Frame(CompiledSchema schema, boolean object) {
+            this.schema = schema;
+            this.object = object;
+        }
+
+        private void markSeen(String name) {
+            List<String> required = schema.getRequired();
+            if (required.isEmpty()) {
+                return;
+            }
+            int index = required.indexOf(name);
+            if (index >= 0) {
+                if (seen == null) {
+                    seen = new BitSet(required.size());
+                }
+                seen.set(index);
+            }
+        }
+
+        private boolean allRequiredSeen() {
+            int requiredCount = schema.getRequired().size();
+            return requiredCount == 0 || (seen != null && seen.cardinality() == requiredCount);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.myapp.caac.validations.schema;
+
+// Receives the structure of a document as the content validators stream through it
+public interface StructureListener {
+
+    void startObject();
+
+    void fieldName(String name);
+
+    void endObject();
+
+    void startArray();
+
+    void endArray();
+
+    void scalar(JsonType type);
+
+    // A value whose type is not known while streaming, such as a YAML alias
+    void anyValue();
+
+    boolean isValid();
+}
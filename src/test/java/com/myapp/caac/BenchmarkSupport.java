@@ -0,0 +1,46 @@
+package com.myapp.caac;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+// Minimal timing loop for the tests tagged "benchmark", run with ./gradlew benchmark and kept out of ./gradlew test.
+// Numbers are indicative only: a single fork, no JIT isolation, so compare variants within one run.
+public final class BenchmarkSupport {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private BenchmarkSupport() {
+    }
+
+    // Allocation is only counted on the calling thread, so it understates work handed to other threads
+    public static Result measure(String name, int warmups, int iterations, Operation operation) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        Result result = new Result(name, elapsed / iterations, allocated / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    public record Result(String name, long nanosPerOperation, long bytesAllocatedPerOperation) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-48s %10.3f ms/op %12d B/op allocated",
+                    name, nanosPerOperation / 1_000_000.0, bytesAllocatedPerOperation);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.myapp.caac.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.entity.CustomApi;
+import com.myapp.caac.entity.ExportConfigurations;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportConfigurationsRepositoryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void upsertAfterTornJournalEntrySurvivesReload() throws Exception {
+        Path journal = directory.resolve("exportConfigurations.journal");
+        String intact = objectMapper.writeValueAsString(preset("first", "tenant")) + "\n";
+        Files.writeString(journal, intact + "{\"name\":\"torn\",\"apiL", StandardCharsets.UTF_8);
+
+        ExportConfigurationsRepository repository = repository(50);
+        repository.load();
+        assertEquals(List.of("first"), names(repository));
+
+        repository.upsert(preset("second", "api"));
+
+        ExportConfigurationsRepository reloaded = repository(50);
+        reloaded.load();
+        assertEquals(List.of("first", "second"), names(reloaded));
+        assertTrue(Files.readString(journal, StandardCharsets.UTF_8).endsWith("\n"));
+    }
+
+    @Test
+    void journalWithoutAnyCompleteEntryIsEmptied() throws Exception {
+        Path journal = directory.resolve("exportConfigurations.journal");
+        Files.writeString(journal, "{\"name\":\"to", StandardCharsets.UTF_8);
+
+        ExportConfigurationsRepository repository = repository(50);
+        repository.load();
+        repository.upsert(preset("only", "tenant"));
+
+        ExportConfigurationsRepository reloaded = repository(50);
+        reloaded.load();
+        assertEquals(List.of("only"), names(reloaded));
+    }
+
+    @Test
+    void laterUpsertReplacesPresetOfSameName() throws Exception {
+        ExportConfigurationsRepository repository = repository(50);
+        repository.load();
+        repository.upsert(preset("preset", "tenant"));
+        repository.upsert(preset("preset", "api"));
+
+        ExportConfigurationsRepository reloaded = repository(50);
+        reloaded.load();
+        assertEquals(1, reloaded.findAll().size());
+        assertEquals("api", reloaded.findAll().get(0).getApiIds());
+    }
+
+    @Test
+    void compactionFoldsJournalIntoSnapshot() throws Exception {
+        ExportConfigurationsRepository repository = repository(50);
+        repository.load();
+        repository.upsert(preset("first", "tenant"));
+        repository.upsert(preset("second", "api"));
+        repository.compact();
+
+        assertFalse(Files.exists(directory.resolve("exportConfigurations.journal")));
+        ExportConfigurationsRepository reloaded = repository(50);
+        reloaded.load();
+        assertEquals(List.of("first", "second"), names(reloaded));
+    }
+
+    // Upserts are not held up while the snapshot is written, and what they journal meanwhile is kept
+    @Test
+    void upsertDuringCompactionIsNeitherBlockedNorLost() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        Thread testThread = Thread.currentThread();
+        ExportConfigurations slow = new ExportConfigurations() {
+            @Override
+            public List<CustomApi> getApiList() {
+                if (Thread.currentThread() != testThread && writing.getCount() > 0) {
+                    writing.countDown();
+                    try {
+                        proceed.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getApiList();
+            }
+        };
+        slow.setName("first");
+        slow.setApiList(List.of(new CustomApi("tenant", "tenant", "yaml")));
+        ExportConfigurationsRepository repository = repository(50);
+        repository.load();
+        repository.upsert(slow);
+
+        CompletableFuture<Void> compaction = CompletableFuture.runAsync(() -> {
+            try {
+                repository.compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            CompletableFuture.runAsync(() -> {
+                try {
+                    repository.upsert(preset("second", "api"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            proceed.countDown();
+        }
+        compaction.get(5, TimeUnit.SECONDS);
+
+        List<String> journal = Files.readAllLines(directory.resolve("exportConfigurations.journal"), StandardCharsets.UTF_8);
+        assertEquals(1, journal.size());
+        assertTrue(journal.get(0).contains("\"second\""));
+        ExportConfigurationsRepository reloaded = repository(50);
+        reloaded.load();
+        assertEquals(List.of("first", "second"), names(reloaded));
+    }
+
+    private ExportConfigurationsRepository repository(int compactAfter) {
+        return new ExportConfigurationsRepository(directory, objectMapper, compactAfter);
+    }
+
+    private static List<String> names(ExportConfigurationsRepository repository) {
+        return repository.findAll().stream().map(ExportConfigurations::getName).toList();
+    }
+
+    private static ExportConfigurations preset(String name, String apiId) {
+        ExportConfigurations preset = new ExportConfigurations();
+        preset.setName(name);
+        preset.setApiList(List.of(new CustomApi(apiId, apiId, "yaml")));
+        return preset;
+    }
+}
@@ -0,0 +1,168 @@
+package com.myapp.caac.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchivingServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<ArchivingService> services = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        services.forEach(ArchivingService::close);
+    }
+
+    // The live file stays in place and versions archived within the same millisecond get distinct names
+    @Test
+    void archivedVersionsKeepTheLiveFileAndNeverCollide() throws IOException {
+        ArchivingService service = service(0, 100);
+        Path file = directory.resolve("tenant.yaml");
+
+        List<Long> timestamps = archiveVersions(service, file, 3);
+
+        assertEquals("tenant: 3", Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(3, timestamps.stream().distinct().count());
+        assertEquals(Optional.of(timestamps.get(2)), service.lastArchivedAt(file));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("tenant: " + i, read(service, timestamps.get(i)));
+        }
+    }
+
+    @Test
+    void lastArchivedAtIsRebuiltFromTheDirectory() throws IOException {
+        Path file = directory.resolve("tenant.yaml");
+        List<Long> timestamps = archiveVersions(service(0, 100), file, 2);
+
+        ArchivingService restarted = service(0, 100);
+
+        assertEquals(Optional.of(timestamps.get(1)), restarted.lastArchivedAt(file));
+        assertTrue(restarted.lastArchivedAt(directory.resolve("api.json")).isEmpty());
+    }
+
+    // All but the newest version are packed into a segment and stay readable from there
+    @Test
+    void compactionPacksOlderVersionsIntoASegment() throws Exception {
+        ArchivingService service = service(0, 4);
+        Path file = directory.resolve("tenant.yaml");
+
+        List<Long> timestamps = archiveVersions(service, file, 4);
+
+        await(() -> looseVersions() == 1);
+        assertEquals(1, segmentCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("tenant: " + i, read(service, timestamps.get(i)));
+        }
+    }
+
+    @Test
+    void compactionDropsVersionsOutsideTheRetentionPolicy() throws Exception {
+        ArchivingService service = service(2, 0);
+        Path file = directory.resolve("tenant.yaml");
+        List<Long> timestamps = archiveVersions(service, file, 5);
+
+        service.scheduleCompaction(archive());
+
+        await(() -> looseVersions() == 1 && segmentCount() == 1);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(service.readVersion(archive(), "tenant.yaml", timestamps.get(i)).isEmpty());
+        }
+        assertEquals("tenant: 3", read(service, timestamps.get(3)));
+        assertEquals("tenant: 4", read(service, timestamps.get(4)));
+        // The file was still replaced at the expired times
+        assertEquals(Optional.of(timestamps.get(4)), service.lastArchivedAt(file));
+    }
+
+    // A data file without an index is an interrupted compaction; the next compaction removes it
+    @Test
+    void incompleteSegmentIsRemoved() throws Exception {
+        ArchivingService service = service(0, 0);
+        Path file = directory.resolve("tenant.yaml");
+        List<Long> timestamps = archiveVersions(service, file, 2);
+        Path segments = Files.createDirectories(archive().resolve(".segments"));
+        Path orphan = Files.writeString(segments.resolve("segment-1.gz"), "partial", StandardCharsets.UTF_8);
+
+        service.scheduleCompaction(archive());
+
+        await(() -> !Files.exists(orphan) && segmentCount() == 1);
+        assertEquals("tenant: 0", read(service, timestamps.get(0)));
+    }
+
+    private ArchivingService service(int keepVersions, int compactAfter) {
+        ArchivingService service = new ArchivingService(keepVersions, 0, compactAfter, 4, 0);
+        services.add(service);
+        return service;
+    }
+
+    // Archives versions 0..count-1 of file, each replaced the way a save does it; returns their archive timestamps
+    private static List<Long> archiveVersions(ArchivingService service, Path file, int count) throws IOException {
+        List<Long> timestamps = new ArrayList<>();
+        Files.writeString(file, "tenant: 0", StandardCharsets.UTF_8);
+        for (int i = 0; i < count; i++) {
+            Path archived = service.archiveFile(file);
+            String name = archived.getFileName().toString();
+            timestamps.add(Long.parseLong(name.substring(name.lastIndexOf('_') + 1, name.lastIndexOf('.'))));
+            Path next = Files.writeString(file.resolveSibling("next.tmp"), "tenant: " + (i + 1), StandardCharsets.UTF_8);
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return timestamps;
+    }
+
+    private String read(ArchivingService service, long timestamp) throws IOException {
+        try (InputStream in = service.readVersion(archive(), "tenant.yaml", timestamp).orElseThrow()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Path archive() {
+        return directory.resolve("archive");
+    }
+
+    private long looseVersions() {
+        try (Stream<Path> files = Files.list(archive())) {
+            return files.filter(Files::isRegularFile).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long segmentCount() {
+        Path segments = archive().resolve(".segments");
+        if (!Files.isDirectory(segments)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(segments)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".idx")).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertFalse(System.nanoTime() > deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.myapp.caac.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BundleCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeThroughStreamsToResponseAndCachesBundle() throws IOException {
+        BundleCache cache = new BundleCache(directory.toString(), 4, 1 << 20);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        cache.writeThrough("key", response, writing("bundle"));
+
+        assertArrayEquals(bytes("bundle"), response.toByteArray());
+        try (FileChannel channel = cache.open("key").orElseThrow()) {
+            assertArrayEquals(bytes("bundle"), read(channel));
+        }
+    }
+
+    @Test
+    void openBundleStaysReadableWhenEvicted() throws IOException {
+        BundleCache cache = new BundleCache(directory.toString(), 1, 1 << 20);
+        cache.writeThrough("first", new ByteArrayOutputStream(), writing("first bundle"));
+
+        try (FileChannel channel = cache.open("first").orElseThrow()) {
+            cache.writeThrough("second", new ByteArrayOutputStream(), writing("second bundle"));
+
+            assertEquals(Optional.empty(), cache.open("first"));
+            assertEquals(1, zipFiles());
+            assertArrayEquals(bytes("first bundle"), read(channel));
+        }
+    }
+
+    @Test
+    void rebuildingAKeyDeletesOnlyTheReplacedBundle() throws IOException {
+        BundleCache cache = new BundleCache(directory.toString(), 4, 1 << 20);
+        cache.writeThrough("key", new ByteArrayOutputStream(), writing("old"));
+        cache.writeThrough("key", new ByteArrayOutputStream(), writing("new"));
+
+        assertEquals(1, zipFiles());
+        try (FileChannel channel = cache.open("key").orElseThrow()) {
+            assertArrayEquals(bytes("new"), read(channel));
+        }
+    }
+
+    @Test
+    void bundleDeletedBehindTheCacheIsAMiss() throws IOException {
+        BundleCache cache = new BundleCache(directory.toString(), 4, 1 << 20);
+        cache.writeThrough("key", new ByteArrayOutputStream(), writing("bundle"));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+
+        assertTrue(cache.open("key").isEmpty());
+    }
+
+    // Content the key names can change while a bundle is written; such a bundle is served but not cached
+    @Test
+    void bundleThatNoLongerMatchesItsKeyIsNotCached() throws IOException {
+        BundleCache cache = new BundleCache(directory.toString(), 4, 1 << 20);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        cache.writeThrough("key", response, out -> {
+            out.write(bytes("changed bundle"));
+            return false;
+        });
+
+        assertArrayEquals(bytes("changed bundle"), response.toByteArray());
+        assertTrue(cache.open("key").isEmpty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static BundleCache.BundleWriter writing(String content) {
+        return out -> {
+            out.write(bytes(content));
+            return true;
+        };
+    }
+
+    private long zipFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".zip")).count();
+        }
+    }
+
+    private static byte[] read(FileChannel channel) throws IOException {
+        InputStream in = Channels.newInputStream(channel);
+        return in.readAllBytes();
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+package com.myapp.caac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.enums.ProductName;
+import com.myapp.caac.model.EntryValidation;
+import com.myapp.caac.service.BundleValidationService.BundleConfiguration;
+import com.myapp.caac.service.resource.ConfigurationCache;
+import com.myapp.caac.service.resource.GenerationService;
+import com.myapp.caac.service.resource.LocalFileConfigurationManagementService;
+import com.myapp.caac.util.ContentHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BundleValidationServiceTest {
+
+    private static final byte[] VALID = "tenant:\n  name: example\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INVALID = "tenant: [unterminated".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private final ConfigurationCache configurationCache = new ConfigurationCache(16, 1 << 20);
+    private final ValidationResultCache validationResultCache = new ValidationResultCache(16);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger opened = new AtomicInteger();
+    private BundleValidationService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GenerationService generationService = new GenerationService("project", directory.toString(), 5, configurationCache);
+        LocalFileConfigurationManagementService configurationService = new LocalFileConfigurationManagementService(
+                "project", directory.toString(), new ArchivingService(0, 0, 100, 4, 0), configurationCache,
+                generationService, validationResultCache, 1 << 20);
+        service = new BundleValidationService(new ConfigurationValidatorFactory(new ObjectMapper()),
+                validationResultCache, configurationService);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        executor.shutdownNow();
+        configurationCache.close();
+    }
+
+    @Test
+    void reportHasOneResultPerConfigurationInOrder() {
+        List<EntryValidation> report = service.validate(List.of(
+                configuration("tenant.yaml", ProductName.TENANT, VALID),
+                configuration("notes.txt", null, INVALID),
+                configuration("product.yaml", ProductName.PRODUCT, VALID)), executor);
+
+        assertEquals(List.of("tenant.yaml", "notes.txt", "product.yaml"), report.stream().map(EntryValidation::getName).toList());
+        assertEquals(List.of(EntryValidation.Status.VALID, EntryValidation.Status.UNCHECKED, EntryValidation.Status.VALID),
+                report.stream().map(EntryValidation::getStatus).toList());
+        assertTrue(BundleValidationService.isValid(report));
+    }
+
+    // With one validation thread and slow sources the rest are still queued when the first one fails
+    @Test
+    void firstFailureCancelsTheRemainingValidations() {
+        List<BundleConfiguration> configurations = new ArrayList<>();
+        configurations.add(configuration("tenant.yaml", ProductName.TENANT, INVALID));
+        for (int i = 0; i < 20; i++) {
+            byte[] content = ("product: " + i).getBytes(StandardCharsets.UTF_8);
+            configurations.add(new BundleConfiguration("product-" + i + ".yaml", ProductName.PRODUCT,
+                    ContentHash.sha256Hex(content), content.length, () -> {
+                opened.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                return new ByteArrayInputStream(content);
+            }));
+        }
+
+        List<EntryValidation> report = service.validate(configurations, executor);
+
+        assertFalse(BundleValidationService.isValid(report));
+        assertEquals(EntryValidation.Status.INVALID, report.get(0).getStatus());
+        assertEquals(21, report.size());
+        assertTrue(report.subList(1, report.size()).stream().allMatch(entry -> entry.getStatus() == EntryValidation.Status.VALID
+                || entry.getStatus() == EntryValidation.Status.CANCELLED));
+        assertTrue(report.stream().anyMatch(entry -> entry.getStatus() == EntryValidation.Status.CANCELLED));
+        assertTrue(opened.get() < configurations.size(), String.valueOf(opened.get()));
+    }
+
+    @Test
+    void cachedResultIsUsedWithoutReadingTheContent() throws IOException {
+        validationResultCache.isValid(ProductName.TENANT, ContentHash.sha256Hex(VALID), () -> true);
+
+        List<EntryValidation> report = service.validate(List.of(configuration("tenant.yaml", ProductName.TENANT, VALID)), executor);
+
+        assertEquals(EntryValidation.Status.VALID, report.get(0).getStatus());
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    void typeComesFromTheFileNameOrTheMetadataName() {
+        assertEquals(Optional.of(ProductName.API), service.productNameOf("whatever_metadata.json", "api.json"));
+        assertEquals(Optional.of(ProductName.TENANT), service.productNameOf("tenant_metadata.json", "custom.yaml"));
+        assertEquals(Optional.empty(), service.productNameOf("custom_metadata.json", "custom.yaml"));
+        assertEquals(Optional.empty(), service.productNameOf(null, "custom.yaml"));
+    }
+
+    private BundleConfiguration configuration(String fileName, ProductName productName, byte[] content) {
+        return new BundleConfiguration(fileName, productName, ContentHash.sha256Hex(content), content.length, () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        });
+    }
+}
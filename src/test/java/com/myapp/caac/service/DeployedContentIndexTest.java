@@ -0,0 +1,68 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.util.ContentHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeployedContentIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final DeployedContentIndex index = new DeployedContentIndex(16);
+
+    @Test
+    void deployedFileIsHashedOnFirstLookup() throws IOException {
+        Path file = Files.writeString(directory.resolve("tenant.yaml"), "tenant: a", StandardCharsets.UTF_8);
+
+        assertEquals(ContentHash.sha256Hex(file), index.hashOf(file).orElseThrow());
+        assertTrue(index.isDeployed(file, ContentHash.sha256Hex(file)));
+        assertFalse(index.isDeployed(file, ContentHash.sha256Hex(new byte[0])));
+    }
+
+    @Test
+    void missingFileIsNotDeployed() throws IOException {
+        Path file = directory.resolve("tenant.yaml");
+
+        assertTrue(index.hashOf(file).isEmpty());
+        assertFalse(index.isDeployed(file, ContentHash.sha256Hex(new byte[0])));
+        assertTrue(index.hashOf(directory).isEmpty());
+    }
+
+    // A recorded hash is trusted without reading the file while its size and modification time are unchanged
+    @Test
+    void recordedHashIsUsedUntilTheFileChanges() throws IOException {
+        Path file = Files.writeString(directory.resolve("tenant.yaml"), "tenant: a", StandardCharsets.UTF_8);
+        index.record(file, "recorded");
+
+        assertTrue(index.isDeployed(file, "recorded"));
+
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "tenant: b", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 1000));
+        assertFalse(index.isDeployed(file, "recorded"));
+        assertEquals(ContentHash.sha256Hex(file), index.hashOf(file).orElseThrow());
+    }
+
+    // Generations hard-link unchanged files, the hash follows the file rather than its path
+    @Test
+    void hardLinkSharesTheRecordedHash() throws IOException {
+        Path file = Files.writeString(directory.resolve("tenant.yaml"), "tenant: a", StandardCharsets.UTF_8);
+        index.record(file, "recorded");
+        Path next = Files.createDirectory(directory.resolve("next"));
+
+        Path link = Files.createLink(next.resolve("tenant.yaml"), file);
+
+        assertTrue(index.isDeployed(link, "recorded"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.myapp.caac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.model.ExportBundle;
+import com.myapp.caac.model.ExportJob;
+import com.myapp.caac.util.BundleEntry;
+import com.myapp.caac.util.ZipFileCreator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportJobServiceTest {
+
+    private static final String[] IDS = {"tenant"};
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ZipFileCreator zipFileCreator = new ZipFileCreator(objectMapper, 1, Long.MAX_VALUE, 1 << 20, 0, new String[0]);
+    private final List<ExportJobService> services = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        services.forEach(ExportJobService::close);
+        zipFileCreator.close();
+    }
+
+    @Test
+    void completedJobServesItsBundleUntilItExpires() throws Exception {
+        ExportJobService service = service(60, 0);
+
+        ExportJob job = service.submit(IDS, "default", null);
+        awaitFinished(job);
+
+        assertEquals(ExportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(job, service.get(job.getId()).orElseThrow());
+        try (ZipFile zip = new ZipFile(job.getBundlePath().toFile())) {
+            assertNotNull(zip.getEntry("tenant.yaml"));
+            assertNotNull(zip.getEntry("manifest.json"));
+        }
+    }
+
+    @Test
+    void expiredJobsArePurgedWithoutFurtherRequests() throws Exception {
+        ExportJobService service = service(0, 1);
+
+        ExportJob job = service.submit(IDS, "default", null);
+        awaitFinished(job);
+        Path bundle = job.getBundlePath();
+
+        await(() -> !Files.exists(bundle));
+        assertTrue(service.get(job.getId()).isEmpty());
+    }
+
+    @Test
+    void statusRequestsDoNotSeeExpiredJobs() throws Exception {
+        ExportJobService service = service(0, 0);
+
+        ExportJob job = service.submit(IDS, "default", null);
+        awaitFinished(job);
+
+        assertTrue(service.get(job.getId()).isEmpty());
+        assertFalse(Files.exists(job.getBundlePath()));
+    }
+
+    @Test
+    void leftoverBundlesAreRemovedOnStart() throws IOException {
+        Path jobs = directory.resolve("jobs");
+        Files.createDirectories(jobs);
+        Files.writeString(jobs.resolve("old.zip"), "stale", StandardCharsets.UTF_8);
+
+        service(60, 0);
+
+        try (var remaining = Files.list(jobs)) {
+            assertEquals(0, remaining.count());
+        }
+    }
+
+    private ExportJobService service(long retentionMinutes, long purgeIntervalSeconds) throws IOException {
+        ExportJobService service = new ExportJobService(directory.resolve("jobs").toString(), 1, 4,
+                retentionMinutes, purgeIntervalSeconds, exportService(), zipFileCreator);
+        services.add(service);
+        return service;
+    }
+
+    private ExportService exportService() {
+        return new ExportService("project", directory.toString(), null, null, objectMapper) {
+            @Override
+            public ExportBundle buildBundle(String[] ids, Long since) {
+                List<BundleEntry> entries = List.of(
+                        BundleEntry.ofBytes("tenant.yaml", "name: example".getBytes(StandardCharsets.UTF_8)));
+                return new ExportBundle(entries, "tenant", 1, 42L, Map.of());
+            }
+        };
+    }
+
+    private static void awaitFinished(ExportJob job) throws InterruptedException {
+        await(() -> job.getStatus().isFinished());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+}
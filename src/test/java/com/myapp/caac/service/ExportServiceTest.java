@@ -0,0 +1,147 @@
+package com.myapp.caac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.model.ExportBundle;
+import com.myapp.caac.model.RootMetadata;
+import com.myapp.caac.service.resource.ConfigurationCache;
+import com.myapp.caac.service.resource.GenerationService;
+import com.myapp.caac.service.resource.LocalFileConfigurationManagementService;
+import com.myapp.caac.util.BundleEntry;
+import com.myapp.caac.util.ContentHash;
+import com.myapp.caac.validations.api.TenantConfigurationValidator;
+import com.myapp.caac.validations.schema.CompiledSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportServiceTest {
+
+    private static final String[] IDS = {"tenant", "api", "missing"};
+    private static final long TENANT_CHANGED_AT = 1_600_000_000_000L;
+    private static final long API_CHANGED_AT = 1_600_000_100_000L;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConfigurationCache configurationCache = new ConfigurationCache(16, 1 << 20);
+    private final ArchivingService archivingService = new ArchivingService(0, 0, 100, 4, 0);
+    private GenerationService generationService;
+    private LocalFileConfigurationManagementService configurationService;
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        generationService = new GenerationService("project", directory.toString(), 5, configurationCache);
+        Path current = Files.createDirectories(generationService.currentDirectory());
+        write(current.resolve("tenant.yaml"), "tenant: a", TENANT_CHANGED_AT);
+        write(current.resolve("api.json"), "{\"api\": []}", API_CHANGED_AT);
+        configurationService = new LocalFileConfigurationManagementService("project", directory.toString(),
+                archivingService, configurationCache, generationService, new ValidationResultCache(16), 1 << 20);
+        exportService = new ExportService("project", directory.toString(), archivingService, configurationService, objectMapper);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        configurationCache.close();
+        archivingService.close();
+    }
+
+    @Test
+    void fullBundleHoldsEveryFoundConfigurationAndTheLatestVersion() throws IOException {
+        ExportBundle bundle = exportService.buildBundle(IDS);
+
+        assertEquals(2, bundle.getApplicationCount());
+        assertEquals(API_CHANGED_AT, bundle.getVersion());
+        assertEquals(List.of("root_metadata.json", "tenant_metadata.json", "tenant.yaml", "api_metadata.json", "api.json"),
+                names(bundle));
+    }
+
+    @Test
+    void deltaBundleHoldsOnlyWhatChangedSince() throws IOException {
+        ExportBundle bundle = exportService.buildBundle(IDS, TENANT_CHANGED_AT);
+
+        assertEquals(1, bundle.getApplicationCount());
+        assertEquals(API_CHANGED_AT, bundle.getVersion());
+        assertEquals(List.of("root_metadata.json", "api_metadata.json", "api.json"), names(bundle));
+        RootMetadata metadata = objectMapper.readValue(bundle.getEntries().get(0).getContent(), RootMetadata.class);
+        assertEquals("1", metadata.getNoOfApplications());
+        assertEquals("api.json", metadata.getApplications().get(0).getApplicationName());
+    }
+
+    @Test
+    void nothingChangedSinceTheLatestVersion() throws IOException {
+        ExportBundle bundle = exportService.buildBundle(IDS, API_CHANGED_AT);
+
+        assertEquals(0, bundle.getApplicationCount());
+        assertEquals(API_CHANGED_AT, bundle.getVersion());
+        assertEquals(List.of("root_metadata.json"), names(bundle));
+    }
+
+    // A save archives the replaced version, which records when the file changed
+    @Test
+    void savedConfigurationCountsAsChanged() throws IOException {
+        configurationService.saveConfiguration(new MockMultipartFile("file", "tenant.yaml", "application/octet-stream",
+                "tenant: b".getBytes(StandardCharsets.UTF_8)), "tenant", new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        ExportBundle bundle = exportService.buildBundle(IDS, API_CHANGED_AT);
+
+        assertEquals(List.of("root_metadata.json", "tenant_metadata.json", "tenant.yaml"), names(bundle));
+        assertTrue(bundle.getVersion() > API_CHANGED_AT);
+        assertEquals(bundle.getVersion(), exportService.buildBundle(IDS).getVersion());
+    }
+
+    // A rollback restores the older file and its older modification time, it still counts as a change
+    @Test
+    void rolledBackConfigurationCountsAsChanged() throws Exception {
+        Path current = generationService.currentDirectory();
+        try (GenerationService.Generation generation = generationService.begin()) {
+            Path tenant = generation.resolve(directory.toString(), "tenant.yaml");
+            Files.delete(tenant);
+            write(tenant, "tenant: imported", API_CHANGED_AT + 1000);
+            generation.publish();
+        }
+        long version = exportService.buildBundle(IDS).getVersion();
+        Thread.sleep(5);
+
+        generationService.rollback();
+
+        assertEquals(current, generationService.currentDirectory());
+        ExportBundle bundle = exportService.buildBundle(IDS, version);
+        assertEquals(List.of("root_metadata.json", "tenant_metadata.json", "tenant.yaml"), names(bundle));
+        assertArrayEquals("tenant: a".getBytes(StandardCharsets.UTF_8), bundle.getEntries().get(2).getContent());
+    }
+
+    // The cache key names each configuration's content; what is written is checked against it
+    @Test
+    void bundleKnowsTheContentItsKeyNames() throws IOException {
+        ExportBundle bundle = exportService.buildBundle(IDS);
+
+        assertTrue(bundle.matchesKey("tenant.yaml", ContentHash.sha256Hex("tenant: a".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(bundle.matchesKey("tenant.yaml", ContentHash.sha256Hex("tenant: b".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(bundle.matchesKey("root_metadata.json", "anything"));
+    }
+
+    private static List<String> names(ExportBundle bundle) {
+        return bundle.getEntries().stream().map(BundleEntry::getName).toList();
+    }
+
+    private static void write(Path file, String content, long lastModified) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+}
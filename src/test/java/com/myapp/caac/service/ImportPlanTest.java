@@ -0,0 +1,106 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.model.Application;
+import com.myapp.caac.model.RootMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportPlanTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void levelsRunInExecutionSeqOrder() {
+        RootMetadata metadata = metadata("4", application("api", 2), application("tenant", 1),
+                application("product", 2), application("productfamily", 3));
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        assertTrue(new ImportPlan(metadata).execute(executor, application -> applied.add(application.getApplicationName())));
+
+        assertEquals(List.of(1, 2, 3), List.copyOf(new ImportPlan(metadata).getLevels().keySet()));
+        assertEquals("tenant", applied.get(0));
+        assertEquals(Set.of("api", "product"), Set.copyOf(applied.subList(1, 3)));
+        assertEquals("productfamily", applied.get(3));
+    }
+
+    @Test
+    void applicationsOfOneLevelRunConcurrently() {
+        RootMetadata metadata = metadata("2", application("api", 1), application("product", 1));
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        assertTrue(new ImportPlan(metadata).execute(executor, application -> {
+            bothStarted.countDown();
+            try {
+                return bothStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+    }
+
+    @Test
+    void failedLevelStopsLaterLevels() {
+        RootMetadata metadata = metadata("3", application("tenant", 1), application("api", 2), application("product", 3));
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        assertFalse(new ImportPlan(metadata).execute(executor, application -> {
+            applied.add(application.getApplicationName());
+            if ("api".equals(application.getApplicationName())) {
+                throw new IllegalStateException("broken");
+            }
+            return true;
+        }));
+
+        assertEquals(List.of("tenant", "api"), applied);
+    }
+
+    @Test
+    void applicationWithoutExecutionSeqFailsThePlan() {
+        RootMetadata metadata = metadata("2", application("tenant", 1), application("api", null));
+
+        assertFalse(new ImportPlan(metadata).execute(executor, application -> true));
+    }
+
+    @Test
+    void invalidApplicationCountFailsThePlanInsteadOfThrowing() {
+        for (String count : Arrays.asList("3", "two", "", " 2", null)) {
+            RootMetadata metadata = metadata(count, application("tenant", 1), application("api", 2));
+
+            assertFalse(new ImportPlan(metadata).execute(executor, application -> true), String.valueOf(count));
+        }
+    }
+
+    private static RootMetadata metadata(String count, Application... applications) {
+        RootMetadata metadata = new RootMetadata();
+        metadata.setNoOfApplications(count);
+        metadata.setApplications(List.of(applications));
+        return metadata;
+    }
+
+    private static Application application(String name, Integer executionSeq) {
+        Application application = new Application();
+        application.setApplicationName(name);
+        application.setExecutionSeq(executionSeq);
+        return application;
+    }
+}
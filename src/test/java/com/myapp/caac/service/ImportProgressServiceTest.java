@@ -0,0 +1,125 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.model.ImportProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportProgressServiceTest {
+
+    private final ImportProgressService service = new ImportProgressService(10, 30);
+
+    @AfterEach
+    void close() {
+        service.close();
+    }
+
+    @Test
+    void subscriberFollowsImportUntilItCompletes() throws InterruptedException {
+        ImportProgress progress = service.begin("import-1");
+        RecordingEmitter client = new RecordingEmitter();
+        service.subscribe("import-1", client);
+
+        runImport(progress);
+
+        assertTrue(client.completed.await(5, TimeUnit.SECONDS));
+        // UPLOAD_RECEIVED, METADATA_PARSED, FINISHED, at least one progress event and the result
+        assertTrue(client.sent.get() >= 5, String.valueOf(client.sent.get()));
+    }
+
+    @Test
+    void lateSubscriberGetsTheRecordedStagesAndTheResult() throws InterruptedException {
+        ImportProgress progress = service.begin("import-1");
+        runImport(progress);
+
+        RecordingEmitter client = new RecordingEmitter();
+        service.subscribe("import-1", client);
+
+        assertTrue(client.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(5, client.sent.get());
+    }
+
+    @Test
+    void stalledClientHoldsUpNeitherTheImportNorOtherClients() throws InterruptedException {
+        ImportProgress progress = service.begin("import-1");
+        CountDownLatch release = new CountDownLatch(1);
+        StalledEmitter stalled = new StalledEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter();
+        service.subscribe("import-1", stalled);
+        assertTrue(stalled.blocked.await(5, TimeUnit.SECONDS));
+        service.subscribe("import-1", healthy);
+
+        runImport(progress);
+
+        assertTrue(healthy.completed.await(5, TimeUnit.SECONDS));
+        assertFalse(stalled.completed);
+        release.countDown();
+    }
+
+    @Test
+    void importIdCanOnlyBeClaimedOnce() {
+        service.begin("import-1");
+
+        assertThrows(IllegalArgumentException.class, () -> service.begin("import-1"));
+    }
+
+    private static void runImport(ImportProgress progress) {
+        progress.start(100);
+        progress.stage(ImportProgress.Stage.METADATA_PARSED, 2, 50);
+        progress.getResult().applied(10);
+        progress.getResult().complete(true);
+        progress.finish();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final AtomicInteger sent = new AtomicInteger();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+
+    // Blocks in its first send, like a client that stopped reading with a full socket buffer
+    private static class StalledEmitter extends SseEmitter {
+        private final CountDownLatch release;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private volatile boolean completed;
+
+        private StalledEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.myapp.caac.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.enums.ImportMode;
+import com.myapp.caac.model.Application;
+import com.myapp.caac.model.ApplicationMetaData;
+import com.myapp.caac.model.BundleManifest;
+import com.myapp.caac.model.ImportProgress;
+import com.myapp.caac.model.ImportResult;
+import com.myapp.caac.model.ManifestEntry;
+import com.myapp.caac.model.RootMetadata;
+import com.myapp.caac.service.resource.ConfigurationCache;
+import com.myapp.caac.service.resource.GenerationService;
+import com.myapp.caac.service.resource.LocalFileConfigurationManagementService;
+import com.myapp.caac.util.ContentHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportServiceTest {
+
+    private static final byte[] TENANT = "tenant:\n  name: imported\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] API = "{\"api\": [1, 2, 3]}".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConfigurationCache configurationCache = new ConfigurationCache(16, 1 << 20);
+    private GenerationService generationService;
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        generationService = new GenerationService("project", directory.toString(), 5, configurationCache);
+        ValidationResultCache validationResultCache = new ValidationResultCache(16);
+        LocalFileConfigurationManagementService configurationService = new LocalFileConfigurationManagementService(
+                "project", directory.toString(), new ArchivingService(0, 0, 100, 4, 0), configurationCache,
+                generationService, validationResultCache, 1 << 20);
+        importService = new ImportService();
+        ReflectionTestUtils.setField(importService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(importService, "generationService", generationService);
+        ReflectionTestUtils.setField(importService, "deployedContentIndex", new DeployedContentIndex(100));
+        ReflectionTestUtils.setField(importService, "bundleValidationService", new BundleValidationService(
+                new ConfigurationValidatorFactory(objectMapper), validationResultCache, configurationService));
+        ReflectionTestUtils.setField(importService, "maxMetadataBytes", 1024);
+        ReflectionTestUtils.setField(importService, "importThreads", 2);
+        importService.init();
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        importService.close();
+        configurationCache.close();
+    }
+
+    @Test
+    void streamedBundleIsAppliedInOnePass() throws IOException {
+        ImportResult result = importBundle(ImportMode.STREAM, bundle());
+
+        assertTrue(result.isSuccessful());
+        assertEquals(2, result.getApplied());
+        assertDeployed("tenant.yaml", TENANT);
+        assertDeployed("api.json", API);
+    }
+
+    // A file read before its metadata is spilled to a temp directory and still ends up in place
+    @Test
+    void fileAheadOfItsMetadataIsStillApplied() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("api.json", API);
+        entries.putAll(bundle());
+
+        ImportResult result = importBundle(ImportMode.STREAM, entries);
+
+        assertTrue(result.isSuccessful());
+        assertDeployed("api.json", API);
+    }
+
+    @Test
+    void oversizedMetadataFailsTheImportAndLeavesNoStagingFiles() throws IOException {
+        Map<String, byte[]> entries = bundle();
+        entries.put("api_metadata.json", ("{\"description\": \"" + "x".repeat(2048) + "\"}").getBytes(StandardCharsets.UTF_8));
+
+        ImportResult result = importBundle(ImportMode.STREAM, entries);
+
+        assertFalse(result.isSuccessful());
+        assertFalse(Files.exists(generationService.currentDirectory().resolve("tenant.yaml")));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".import")));
+        }
+    }
+
+    @Test
+    void randomAccessBundleIsAppliedByName() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("unreferenced.bin", new byte[4096]);
+        entries.put("api.json", API);
+        entries.putAll(bundle());
+
+        ImportResult result = importBundle(ImportMode.RANDOM_ACCESS, entries);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(2, result.getApplied());
+        assertDeployed("tenant.yaml", TENANT);
+        assertDeployed("api.json", API);
+        assertFalse(Files.exists(generationService.currentDirectory().resolve("unreferenced.bin")));
+    }
+
+    @Test
+    void randomAccessBundleWithoutRootMetadataFails() throws IOException {
+        Map<String, byte[]> entries = bundle();
+        entries.remove("root_metadata.json");
+
+        assertFalse(importBundle(ImportMode.RANDOM_ACCESS, entries).isSuccessful());
+    }
+
+    // The manifest may only skip a file, a file that does not match it is never applied
+    @Test
+    void fileThatDoesNotMatchTheManifestIsNotApplied() throws IOException {
+        byte[] tampered = "tenant:\n  name: tampered\n".getBytes(StandardCharsets.UTF_8);
+        Map<String, byte[]> entries = bundle();
+        entries.put("tenant.yaml", tampered);
+        entries.put(BundleManifest.FILE_NAME, objectMapper.writeValueAsBytes(new BundleManifest(List.of(
+                new ManifestEntry("tenant.yaml", tampered.length, ContentHash.sha256Hex(TENANT))))));
+
+        ImportResult result = importBundle(ImportMode.RANDOM_ACCESS, entries);
+
+        assertFalse(result.isSuccessful());
+        assertFalse(Files.exists(generationService.currentDirectory().resolve("tenant.yaml")));
+    }
+
+    // A manifest hash never keys the validation cache, and a mismatch fails the import before anything is written,
+    // even to a directory outside the generations
+    @Test
+    void manifestCannotVouchForContentItDoesNotMatch() throws IOException {
+        Path elsewhere = directory.resolve("elsewhere");
+        Map<String, byte[]> entries = bundle();
+        entries.put("tenant_metadata.json", objectMapper.writeValueAsBytes(metadata("tenant.yaml", elsewhere)));
+        importBundle(ImportMode.RANDOM_ACCESS, entries);
+        byte[] invalid = "{\"api\": [1, 2, 3] ".getBytes(StandardCharsets.UTF_8);
+        entries.put("tenant.yaml", "tenant:\n  name: changed\n".getBytes(StandardCharsets.UTF_8));
+        entries.put("api.json", invalid);
+        entries.put(BundleManifest.FILE_NAME, objectMapper.writeValueAsBytes(new BundleManifest(List.of(
+                new ManifestEntry("api.json", invalid.length, ContentHash.sha256Hex(API))))));
+
+        ImportResult result = importBundle(ImportMode.RANDOM_ACCESS, entries);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(0, result.getApplied());
+        assertEquals(new String(TENANT, StandardCharsets.UTF_8),
+                Files.readString(elsewhere.resolve("tenant.yaml"), StandardCharsets.UTF_8));
+        assertDeployed("api.json", API);
+    }
+
+    // Files already deployed with the same content are skipped, and an import that changed nothing is not published
+    @Test
+    void reimportSkipsUnchangedFiles() throws IOException {
+        for (ImportMode mode : List.of(ImportMode.STREAM, ImportMode.RANDOM_ACCESS)) {
+            importBundle(mode, bundle());
+            Path published = generationService.currentDirectory();
+
+            ImportResult result = importBundle(mode, bundle());
+
+            assertTrue(result.isSuccessful(), mode.getId());
+            assertEquals(0, result.getApplied(), mode.getId());
+            assertEquals(2, result.getSkipped(), mode.getId());
+            assertEquals(published, generationService.currentDirectory(), mode.getId());
+        }
+    }
+
+    @Test
+    void onlyChangedFilesAreRewritten() throws IOException {
+        importBundle(ImportMode.STREAM, bundle());
+        byte[] changed = "{\"api\": [4]}".getBytes(StandardCharsets.UTF_8);
+        Map<String, byte[]> entries = bundle();
+        entries.put("api.json", changed);
+
+        ImportResult result = importBundle(ImportMode.STREAM, entries);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(1, result.getApplied());
+        assertEquals(1, result.getSkipped());
+        assertDeployed("tenant.yaml", TENANT);
+        assertDeployed("api.json", changed);
+    }
+
+    // Every configuration is validated before the first one is applied
+    @Test
+    void bundleWithAnInvalidConfigurationIsRejectedWhole() throws IOException {
+        for (ImportMode mode : List.of(ImportMode.STREAM, ImportMode.RANDOM_ACCESS)) {
+            Map<String, byte[]> entries = bundle();
+            entries.put("api.json", "{\"api\": [".getBytes(StandardCharsets.UTF_8));
+
+            ImportResult result = importBundle(mode, entries);
+
+            assertFalse(result.isSuccessful(), mode.getId());
+            assertEquals(0, result.getApplied(), mode.getId());
+            assertTrue(result.toResponse().containsKey("validation"), mode.getId());
+            assertFalse(Files.exists(generationService.currentDirectory().resolve("tenant.yaml")), mode.getId());
+        }
+    }
+
+    // The upload is read and validated before a generation is begun, so saves are not held up while it streams in
+    // and a rejected bundle never reaches the apply stage
+    @Test
+    void streamedBundleTakesTheImportLockOnlyOnceValid() throws IOException {
+        Map<String, byte[]> entries = bundle();
+        entries.put("api.json", "{\"api\": [".getBytes(StandardCharsets.UTF_8));
+        AtomicBoolean savesProceeded = new AtomicBoolean();
+        MockMultipartFile upload = new MockMultipartFile("file", "bundle.zip", "application/zip", zip(entries)) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                savesProceeded.set(CompletableFuture.supplyAsync(ImportServiceTest.this::saveCanProceed).join());
+                return super.getInputStream();
+            }
+        };
+        ImportProgress progress = new ImportProgress("import", () -> {
+        });
+
+        ImportResult result = importService.importConfigs(upload, ImportMode.STREAM, progress);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(savesProceeded.get());
+        assertTrue(progress.stagesFrom(0).stream()
+                .noneMatch(stage -> ImportProgress.Stage.APPLIED.name().equals(stage.get("stage"))));
+    }
+
+    private boolean saveCanProceed() {
+        Lock lock = generationService.getImportLock().readLock();
+        if (!lock.tryLock()) {
+            return false;
+        }
+        lock.unlock();
+        return true;
+    }
+
+    private ImportResult importBundle(ImportMode mode, Map<String, byte[]> entries) throws IOException {
+        ImportProgress progress = new ImportProgress("import", () -> {
+        });
+        return importService.importConfigs(new MockMultipartFile("file", "bundle.zip", "application/zip", zip(entries)),
+                mode, progress);
+    }
+
+    private void assertDeployed(String fileName, byte[] content) throws IOException {
+        assertEquals(new String(content, StandardCharsets.UTF_8),
+                Files.readString(generationService.currentDirectory().resolve(fileName), StandardCharsets.UTF_8));
+    }
+
+    // Same layout as an exported bundle: root metadata first, then each application's metadata ahead of its file
+    private Map<String, byte[]> bundle() throws IOException {
+        RootMetadata rootMetadata = new RootMetadata();
+        rootMetadata.setNoOfApplications("2");
+        rootMetadata.setApplications(List.of(application("tenant.yaml", 1), application("api.json", 2)));
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("root_metadata.json", objectMapper.writeValueAsBytes(rootMetadata));
+        entries.put("tenant_metadata.json", objectMapper.writeValueAsBytes(metadata("tenant.yaml")));
+        entries.put("tenant.yaml", TENANT);
+        entries.put("api_metadata.json", objectMapper.writeValueAsBytes(metadata("api.json")));
+        entries.put("api.json", API);
+        return entries;
+    }
+
+    private static Application application(String fileName, int executionSeq) {
+        Application application = new Application();
+        application.setApplicationName(fileName);
+        application.setApplicationMetadataName(metadataName(fileName));
+        application.setExecutionSeq(executionSeq);
+        return application;
+    }
+
+    private ApplicationMetaData metadata(String fileName) {
+        return metadata(fileName, directory);
+    }
+
+    private static ApplicationMetaData metadata(String fileName, Path applyPath) {
+        ApplicationMetaData metadata = new ApplicationMetaData();
+        metadata.setConfigurationFileName(fileName);
+        metadata.setConfigurationOperation("FileUpload");
+        metadata.setConfigurationApplyPath(applyPath.toString());
+        return metadata;
+    }
+
+    private static String metadataName(String fileName) {
+        return fileName.substring(0, fileName.indexOf('.')) + "_metadata.json";
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return buffer.toByteArray();
+    }
+}
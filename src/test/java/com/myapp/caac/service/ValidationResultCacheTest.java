@@ -0,0 +1,45 @@
+package com.myapp.caac.service;
+
+import com.myapp.caac.enums.ProductName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidationResultCacheTest {
+
+    private final ValidationResultCache cache = new ValidationResultCache(2);
+
+    @Test
+    void validatesEachContentOnce() throws IOException {
+        AtomicInteger validations = new AtomicInteger();
+
+        assertTrue(cache.isValid(ProductName.TENANT, "hash", () -> validations.incrementAndGet() > 0));
+        assertTrue(cache.isValid(ProductName.TENANT, "hash", () -> validations.incrementAndGet() > 0));
+
+        assertEquals(1, validations.get());
+    }
+
+    @Test
+    void resultsAreKeptPerProduct() throws IOException {
+        assertFalse(cache.isValid(ProductName.TENANT, "hash", () -> false));
+
+        assertTrue(cache.isValid(ProductName.API, "hash", () -> true));
+        assertFalse(cache.isValid(ProductName.TENANT, "hash", () -> true));
+    }
+
+    @Test
+    void leastRecentlyUsedResultIsEvicted() throws IOException {
+        cache.isValid(ProductName.TENANT, "a", () -> true);
+        cache.isValid(ProductName.TENANT, "b", () -> true);
+        cache.isValid(ProductName.TENANT, "a", () -> false);
+        cache.isValid(ProductName.TENANT, "c", () -> true);
+
+        assertTrue(cache.isValid(ProductName.TENANT, "a", () -> false));
+        assertFalse(cache.isValid(ProductName.TENANT, "b", () -> false));
+    }
+}
@@ -0,0 +1,98 @@
+package com.myapp.caac.service.resource;
+
+import com.myapp.caac.model.ConfigurationSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigurationCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final ConfigurationCache cache = new ConfigurationCache(16, 1 << 20);
+
+    @AfterEach
+    void close() throws IOException {
+        cache.close();
+    }
+
+    @Test
+    void cachesSnapshotLoadedUnderCurrentStamp() throws IOException {
+        Path file = write("tenant.yaml", "name: a");
+        ConfigurationSnapshot snapshot = snapshot(file);
+
+        cache.put(file, snapshot, cache.currentStamp());
+
+        assertSame(snapshot, cache.get(file));
+    }
+
+    // A load that started before a change must not put the old content back
+    @Test
+    void loadRacingWithInvalidationIsNotCached() throws IOException {
+        Path file = write("tenant.yaml", "name: a");
+        long stamp = cache.currentStamp();
+        ConfigurationSnapshot snapshot = snapshot(file);
+
+        cache.invalidate(file);
+        cache.put(file, snapshot, stamp);
+
+        assertNull(cache.get(file));
+    }
+
+    @Test
+    void externalChangeInvalidatesCachedSnapshot() throws Exception {
+        Path file = write("tenant.yaml", "name: a");
+        cache.watch(directory);
+        assertTrue(cache.isWatching());
+        cache.put(file, snapshot(file), cache.currentStamp());
+
+        Files.writeString(file, "name: b", StandardCharsets.UTF_8);
+
+        awaitEvicted(file);
+    }
+
+    @Test
+    void switchingDirectoriesDropsEverythingAndFollowsTheNewOne() throws Exception {
+        Path file = write("tenant.yaml", "name: a");
+        cache.watch(directory);
+        cache.put(file, snapshot(file), cache.currentStamp());
+        Path next = Files.createDirectory(directory.resolve("next"));
+        Path nextFile = Files.writeString(next.resolve("tenant.yaml"), "name: b", StandardCharsets.UTF_8);
+
+        cache.switchTo(next);
+
+        assertNull(cache.get(file));
+        cache.put(nextFile, snapshot(nextFile), cache.currentStamp());
+        Files.writeString(nextFile, "name: c", StandardCharsets.UTF_8);
+        awaitEvicted(nextFile);
+    }
+
+    private void awaitEvicted(Path file) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.get(file) != null) {
+            assertFalse(System.nanoTime() > deadline, "still cached: " + file);
+            Thread.sleep(20);
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static ConfigurationSnapshot snapshot(Path file) throws IOException {
+        return ConfigurationSnapshot.inMemory(file, Files.readAllBytes(file),
+                Files.getLastModifiedTime(file).toMillis(), null);
+    }
+}
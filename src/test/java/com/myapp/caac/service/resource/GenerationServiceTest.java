@@ -0,0 +1,150 @@
+package com.myapp.caac.service.resource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationServiceTest {
+
+    private static final String FILE_NAME = "tenant.yaml";
+
+    @TempDir
+    Path directory;
+
+    private final ConfigurationCache configurationCache = new ConfigurationCache(16, 1 << 20);
+
+    @AfterEach
+    void closeCache() throws IOException {
+        configurationCache.close();
+    }
+
+    @Test
+    void firstStartMovesFilesIntoInitialGeneration() throws IOException {
+        Files.writeString(directory.resolve(FILE_NAME), "version: 0", StandardCharsets.UTF_8);
+
+        GenerationService generations = service(5);
+
+        assertTrue(generations.isEnabled());
+        assertTrue(Files.isSymbolicLink(directory.resolve("current")));
+        assertFalse(Files.exists(directory.resolve(FILE_NAME)));
+        assertEquals("version: 0", current(generations));
+    }
+
+    @Test
+    void closingWithoutPublishingLeavesCurrentGenerationLive() throws IOException {
+        Files.writeString(directory.resolve(FILE_NAME), "version: 0", StandardCharsets.UTF_8);
+        GenerationService generations = service(5);
+        String initial = generations.currentGenerationId().orElseThrow();
+
+        try (GenerationService.Generation generation = generations.begin()) {
+            write(generation, "version: 1");
+        }
+
+        assertEquals(initial, generations.currentGenerationId().orElseThrow());
+        assertEquals("version: 0", current(generations));
+    }
+
+    @Test
+    void rollbackFollowsPublishOrderRatherThanNames() throws IOException {
+        Files.writeString(directory.resolve(FILE_NAME), "version: A", StandardCharsets.UTF_8);
+        GenerationService generations = service(5);
+        String a = generations.currentGenerationId().orElseThrow();
+
+        publish(generations, "version: B");
+        assertEquals(Optional.of(a), generations.rollback());
+        assertEquals("version: A", current(generations));
+
+        // C is seeded from A and its name sorts after B's, which was rolled away from
+        publish(generations, "version: C");
+        assertEquals(Optional.of(a), generations.rollback());
+        assertEquals("version: A", current(generations));
+        assertEquals(Optional.empty(), generations.rollback());
+    }
+
+    @Test
+    void historySurvivesRestart() throws IOException {
+        Files.writeString(directory.resolve(FILE_NAME), "version: A", StandardCharsets.UTF_8);
+        GenerationService generations = service(5);
+        publish(generations, "version: B");
+        generations.rollback();
+        publish(generations, "version: C");
+
+        GenerationService restarted = service(5);
+
+        assertEquals("version: C", current(restarted));
+        restarted.rollback();
+        assertEquals("version: A", current(restarted));
+    }
+
+    @Test
+    void generationsBeyondKeepAreDeleted() throws IOException {
+        Files.writeString(directory.resolve(FILE_NAME), "version: 0", StandardCharsets.UTF_8);
+        GenerationService generations = service(2);
+        for (int i = 1; i <= 4; i++) {
+            publish(generations, "version: " + i);
+        }
+
+        try (var remaining = Files.list(directory.resolve(".generations"))) {
+            assertEquals(2, remaining.filter(Files::isDirectory).count());
+        }
+        assertEquals("version: 4", current(generations));
+        generations.rollback();
+        assertEquals("version: 3", current(generations));
+        assertEquals(Optional.empty(), generations.rollback());
+    }
+
+    // Rolled-back files come back with their old modification times, the change time keeps moving forward
+    @Test
+    void publishAndRollbackRecordWhichFilesChanged() throws Exception {
+        Files.writeString(directory.resolve(FILE_NAME), "version: A", StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("api.json"), "{}", StandardCharsets.UTF_8);
+        GenerationService generations = service(5);
+        assertEquals(0, generations.changedAt(FILE_NAME));
+
+        publish(generations, "version: B");
+        long published = generations.changedAt(FILE_NAME);
+        assertTrue(published > 0);
+        assertEquals(0, generations.changedAt("api.json"));
+
+        Thread.sleep(5);
+        generations.rollback();
+        long rolledBack = generations.changedAt(FILE_NAME);
+        assertTrue(rolledBack > published);
+        assertTrue(rolledBack > Files.getLastModifiedTime(generations.currentDirectory().resolve(FILE_NAME)).toMillis());
+        assertEquals(0, generations.changedAt("api.json"));
+
+        assertEquals(rolledBack, service(5).changedAt(FILE_NAME));
+    }
+
+    private GenerationService service(int keep) throws IOException {
+        return new GenerationService("project", directory.toString(), keep, configurationCache);
+    }
+
+    private void publish(GenerationService generations, String content) throws IOException {
+        try (GenerationService.Generation generation = generations.begin()) {
+            write(generation, content);
+            generation.publish();
+        }
+    }
+
+    // Seeded files are hard links to the live ones, so a change replaces the file rather than writing into it
+    private void write(GenerationService.Generation generation, String content) throws IOException {
+        Path target = generation.resolve(directory.toString(), FILE_NAME);
+        Files.deleteIfExists(target);
+        Files.writeString(target, content, StandardCharsets.UTF_8);
+    }
+
+    private static String current(GenerationService generations) throws IOException {
+        return Files.readString(generations.currentDirectory().resolve(FILE_NAME), StandardCharsets.UTF_8);
+    }
+}
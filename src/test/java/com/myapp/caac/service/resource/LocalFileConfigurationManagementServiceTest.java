@@ -0,0 +1,290 @@
+package com.myapp.caac.service.resource;
+
+import com.myapp.caac.enums.ProductName;
+import com.myapp.caac.exception.InvalidConfigurationException;
+import com.myapp.caac.model.ConfigurationSnapshot;
+import com.myapp.caac.service.ArchivingService;
+import com.myapp.caac.service.ValidationResultCache;
+import com.myapp.caac.util.ContentHash;
+import com.myapp.caac.validations.api.ApiConfigurationValidator;
+import com.myapp.caac.validations.api.TenantConfigurationValidator;
+import com.myapp.caac.validations.schema.CompiledSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalFileConfigurationManagementServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final ConfigurationCache configurationCache = new ConfigurationCache(16, 1 << 20);
+    private final ArchivingService archivingService = new ArchivingService(0, 0, 100, 4, 0);
+    private final ValidationResultCache validationResultCache = new ValidationResultCache(16);
+    private GenerationService generationService;
+    private LocalFileConfigurationManagementService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        generationService = new GenerationService("project", directory.toString(), 5, configurationCache);
+        service = new LocalFileConfigurationManagementService("project", directory.toString(), archivingService,
+                configurationCache, generationService, validationResultCache, 1 << 20);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        configurationCache.close();
+    }
+
+    @Test
+    void validUploadIsSavedAndItsResultCachedUnderItsHash() throws IOException {
+        byte[] content = "tenant:\n  name: example\n".getBytes(StandardCharsets.UTF_8);
+
+        service.saveConfiguration(upload("tenant.yaml", content), "tenant", new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        assertArrayEquals(content, Files.readAllBytes(generationService.currentDirectory().resolve("tenant.yaml")));
+        assertTrue(validationResultCache.isValid(ProductName.TENANT, ContentHash.sha256Hex(content), () -> {
+            throw new AssertionError("validated again");
+        }));
+    }
+
+    // Content seen before is looked up by its hash and never parsed again
+    @Test
+    void reuploadOfTheSameContentIsNotValidatedAgain() throws IOException {
+        byte[] content = "tenant:\n  name: example\n".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger validations = new AtomicInteger();
+        TenantConfigurationValidator validator = new TenantConfigurationValidator(CompiledSchema.ANY) {
+            @Override
+            public boolean isValid(InputStream content) {
+                validations.incrementAndGet();
+                return super.isValid(content);
+            }
+        };
+
+        service.saveConfiguration(upload("tenant.yaml", content), "tenant", validator);
+        service.saveConfiguration(upload("tenant.yaml", content), "tenant", validator);
+
+        assertEquals(1, validations.get());
+        assertArrayEquals(content, Files.readAllBytes(generationService.currentDirectory().resolve("tenant.yaml")));
+    }
+
+    // The JSON validator stops after the root value; what follows it is still part of the saved file and the hash
+    @Test
+    void contentAfterWhatTheValidatorReadsIsStillSaved() throws IOException {
+        byte[] content = ("{\"api\": [1, 2, 3]}" + " ".repeat(20_000) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        service.saveConfiguration(upload("api.json", content), "api", new ApiConfigurationValidator(CompiledSchema.ANY));
+
+        assertArrayEquals(content, Files.readAllBytes(generationService.currentDirectory().resolve("api.json")));
+        assertTrue(validationResultCache.isValid(ProductName.API, ContentHash.sha256Hex(content), () -> false));
+    }
+
+    @Test
+    void invalidUploadIsRejectedWithoutTouchingTheFile() throws IOException {
+        Path target = generationService.currentDirectory().resolve("tenant.yaml");
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, "tenant: old", StandardCharsets.UTF_8);
+        byte[] content = "tenant: [unterminated".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(InvalidConfigurationException.class, () -> service.saveConfiguration(upload("tenant.yaml", content),
+                "tenant", new TenantConfigurationValidator(CompiledSchema.ANY)));
+
+        assertEquals("tenant: old", Files.readString(target, StandardCharsets.UTF_8));
+        assertFalse(validationResultCache.isValid(ProductName.TENANT, ContentHash.sha256Hex(content), () -> false));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    // The upload is read once, as a stream, and never buffered as a whole
+    @Test
+    void uploadIsReadInASinglePass() throws IOException {
+        byte[] content = "tenant:\n  name: example\n".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        MockMultipartFile file = new MockMultipartFile("file", "tenant.yaml", "application/octet-stream", content) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                assertEquals(1, opened.incrementAndGet(), "upload opened again");
+                return super.getInputStream();
+            }
+
+            @Override
+            public byte[] getBytes() {
+                throw new AssertionError("upload buffered");
+            }
+        };
+
+        service.saveConfiguration(file, "tenant", new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        assertArrayEquals(content, Files.readAllBytes(generationService.currentDirectory().resolve("tenant.yaml")));
+    }
+
+    // Every save of the same type publishes whole and archives the version it replaced, none is lost
+    @Test
+    void concurrentSavesOfTheSameTypeAreSerialized() throws Exception {
+        int writers = 8;
+        TenantConfigurationValidator validator = new TenantConfigurationValidator(CompiledSchema.ANY);
+        Set<String> uploads = new HashSet<>();
+        for (int i = 0; i < writers; i++) {
+            uploads.add("tenant:\n  name: writer-" + i + "\n" + "  padding: x\n".repeat(1000));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> saves = new ArrayList<>();
+            for (String upload : uploads) {
+                saves.add(executor.submit(() -> {
+                    start.await();
+                    service.saveConfiguration(upload("tenant.yaml", upload.getBytes(StandardCharsets.UTF_8)), "tenant", validator);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> save : saves) {
+                save.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<String> published = new HashSet<>();
+        published.add(Files.readString(generationService.currentDirectory().resolve("tenant.yaml"), StandardCharsets.UTF_8));
+        try (Stream<Path> archived = Files.list(archivingService.archiveDirectoryFor(directory))) {
+            for (Path path : archived.filter(Files::isRegularFile).toList()) {
+                published.add(Files.readString(path, StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(uploads, published);
+    }
+
+    // The content hash is the strong ETag, it has to follow the content and nothing else
+    @Test
+    void snapshotHashFollowsTheSavedContent() throws IOException {
+        byte[] first = "tenant:\n  name: first\n".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "tenant:\n  name: second\n".getBytes(StandardCharsets.UTF_8);
+        TenantConfigurationValidator validator = new TenantConfigurationValidator(CompiledSchema.ANY);
+
+        service.saveConfiguration(upload("tenant.yaml", first), "tenant", validator);
+        ConfigurationSnapshot before = service.getConfigurationSnapshot("tenant").orElseThrow();
+        assertEquals(ContentHash.sha256Hex(first), before.getContentHash());
+        assertEquals(before.getContentHash(), service.getConfigurationSnapshot("tenant").orElseThrow().getContentHash());
+
+        service.saveConfiguration(upload("tenant.yaml", second), "tenant", validator);
+        ConfigurationSnapshot after = service.getConfigurationSnapshot("tenant").orElseThrow();
+        assertEquals(ContentHash.sha256Hex(second), after.getContentHash());
+        assertArrayEquals(second, after.getContent());
+    }
+
+    @Test
+    void unknownTypeHasNoSnapshot() {
+        assertTrue(service.getConfigurationSnapshot("unknown").isEmpty());
+    }
+
+    // Files above the threshold are served from disk, only their size and hash are held
+    @Test
+    void largeConfigurationIsStreamedFromDisk() throws IOException {
+        LocalFileConfigurationManagementService streaming = new LocalFileConfigurationManagementService("project",
+                directory.toString(), archivingService, configurationCache, generationService, validationResultCache, 16);
+        byte[] content = "tenant:\n  name: a name longer than the threshold\n".getBytes(StandardCharsets.UTF_8);
+        streaming.saveConfiguration(upload("tenant.yaml", content), "tenant", new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        ConfigurationSnapshot snapshot = streaming.getConfigurationSnapshot("tenant").orElseThrow();
+
+        assertTrue(snapshot.isStreamed());
+        assertEquals(0, snapshot.getCachedBytes());
+        assertEquals(content.length, snapshot.getContentLength());
+        assertEquals(ContentHash.sha256Hex(content), snapshot.getContentHash());
+        assertArrayEquals(content, Files.readAllBytes(snapshot.getPath()));
+        assertEquals(new String(content, StandardCharsets.UTF_8), streaming.getConfiguration("tenant").orElseThrow());
+    }
+
+    @Test
+    void smallConfigurationIsHeldInMemory() throws IOException {
+        byte[] content = "tenant: a".getBytes(StandardCharsets.UTF_8);
+        service.saveConfiguration(upload("tenant.yaml", content), "tenant", new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        ConfigurationSnapshot snapshot = service.getConfigurationSnapshot("tenant").orElseThrow();
+
+        assertFalse(snapshot.isStreamed());
+        assertArrayEquals(content, snapshot.getContent());
+        assertEquals(content.length, snapshot.getContentLength());
+    }
+
+    @Test
+    void compressibleConfigurationKeepsAGzipVariantInMemory() throws IOException {
+        byte[] content = "tenant:\n  name: example\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+        service.saveConfiguration(upload("tenant.yaml", content), "tenant", new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        ConfigurationSnapshot snapshot = service.getConfigurationSnapshot("tenant").orElseThrow();
+
+        assertTrue(snapshot.hasGzipVariant());
+        assertArrayEquals(content, gunzip(snapshot.getGzipContent()));
+        assertEquals(content.length + snapshot.getGzipContent().length, snapshot.getCachedBytes());
+    }
+
+    // A variant that is not smaller than the content is not worth serving
+    @Test
+    void tinyConfigurationHasNoGzipVariant() throws IOException {
+        service.saveConfiguration(upload("tenant.yaml", "a: b".getBytes(StandardCharsets.UTF_8)), "tenant",
+                new TenantConfigurationValidator(CompiledSchema.ANY));
+
+        assertFalse(service.getConfigurationSnapshot("tenant").orElseThrow().hasGzipVariant());
+    }
+
+    @Test
+    void streamedConfigurationKeepsOneGzipSidecarPerFile() throws IOException {
+        LocalFileConfigurationManagementService streaming = new LocalFileConfigurationManagementService("project",
+                directory.toString(), archivingService, configurationCache, generationService, validationResultCache, 16);
+        TenantConfigurationValidator validator = new TenantConfigurationValidator(CompiledSchema.ANY);
+        byte[] first = "tenant:\n  name: first\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+        byte[] second = "tenant:\n  name: second\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+        streaming.saveConfiguration(upload("tenant.yaml", first), "tenant", validator);
+        Path firstSidecar = streaming.getConfigurationSnapshot("tenant").orElseThrow().getGzipPath();
+        streaming.saveConfiguration(upload("tenant.yaml", second), "tenant", validator);
+        ConfigurationSnapshot snapshot = streaming.getConfigurationSnapshot("tenant").orElseThrow();
+
+        assertTrue(snapshot.isStreamed());
+        assertEquals(directory.resolve(".compressed").resolve("tenant.yaml." + ContentHash.sha256Hex(second) + ".gz"),
+                snapshot.getGzipPath());
+        assertArrayEquals(second, gunzip(Files.readAllBytes(snapshot.getGzipPath())));
+        assertFalse(Files.exists(firstSidecar));
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static MockMultipartFile upload(String filename, byte[] content) {
+        return new MockMultipartFile("file", filename, "application/octet-stream", content);
+    }
+}
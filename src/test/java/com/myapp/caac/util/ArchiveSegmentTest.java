@@ -0,0 +1,89 @@
+package com.myapp.caac.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyVersionIsReadBackOnItsOwn() throws IOException {
+        Path segment = directory.resolve("segment-1.gz");
+        List<ArchiveSegment.Entry> written;
+        try (ArchiveSegment.Writer writer = ArchiveSegment.create(segment)) {
+            writer.add("tenant.yaml", 1, write("tenant: a\n".repeat(100)));
+            writer.add("tenant.yaml", 2, write(""));
+            writer.add("api.json", 3, write("{\"api\": []}"));
+            written = writer.finish();
+        }
+
+        assertEquals(written, ArchiveSegment.readIndex(segment));
+        assertEquals("tenant: a\n".repeat(100), read(segment, written.get(0)));
+        assertEquals("", read(segment, written.get(1)));
+        assertEquals("{\"api\": []}", read(segment, written.get(2)));
+        assertEquals(1000, written.get(0).size());
+    }
+
+    // Versions copied from another segment keep their compressed bytes and stay readable
+    @Test
+    void copiedVersionsAreReadableFromTheNewSegment() throws IOException {
+        Path first = directory.resolve("segment-1.gz");
+        List<ArchiveSegment.Entry> source;
+        try (ArchiveSegment.Writer writer = ArchiveSegment.create(first)) {
+            writer.add("tenant.yaml", 1, write("tenant: a"));
+            writer.add("tenant.yaml", 2, write("tenant: b"));
+            source = writer.finish();
+        }
+        Path second = directory.resolve("segment-2.gz");
+        List<ArchiveSegment.Entry> copied;
+        try (ArchiveSegment.Writer writer = ArchiveSegment.create(second)) {
+            writer.add("api.json", 3, write("{}"));
+            writer.copy(first, source.get(1));
+            copied = writer.finish();
+        }
+
+        assertEquals(source.get(1).length(), copied.get(1).length());
+        assertEquals("{}", read(second, copied.get(0)));
+        assertEquals("tenant: b", read(second, copied.get(1)));
+    }
+
+    @Test
+    void unfinishedSegmentLeavesNothingBehind() throws IOException {
+        Path segment = directory.resolve("segment-1.gz");
+        Path source = write("tenant: a");
+
+        try (ArchiveSegment.Writer writer = ArchiveSegment.create(segment)) {
+            writer.add("tenant.yaml", 1, source);
+        }
+
+        assertFalse(Files.exists(segment));
+        assertFalse(Files.exists(ArchiveSegment.indexOf(segment)));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.allMatch(source::equals));
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(directory, "version", ".yaml"), content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(Path segment, ArchiveSegment.Entry entry) throws IOException {
+        try (InputStream in = ArchiveSegment.open(segment, entry)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.myapp.caac.util;
+
+import com.myapp.caac.enums.CompressionProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompressionPolicyTest {
+
+    private static final BundleEntry TEXT = BundleEntry.ofBytes("tenant.yaml", new byte[1024]);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void profilesAreLookedUpByIdIgnoringCase() {
+        assertEquals(CompressionProfile.FAST, CompressionProfile.fromString("fast"));
+        assertEquals(CompressionProfile.SMALL, CompressionProfile.fromString("SMALL"));
+        assertEquals(Deflater.BEST_SPEED, CompressionProfile.FAST.getLevel());
+        assertEquals(Deflater.BEST_COMPRESSION, CompressionProfile.SMALL.getLevel());
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.fromString("fastest"));
+        assertThrows(IllegalArgumentException.class, () -> CompressionProfile.fromString(null));
+    }
+
+    @Test
+    void entriesAreDeflatedAtTheProfilesLevel() throws IOException {
+        CompressionPolicy policy = new CompressionPolicy(CompressionProfile.SMALL, 512, Set.of("png"));
+
+        assertEquals(Deflater.BEST_COMPRESSION, policy.getLevel());
+        assertEquals(ZipEntry.DEFLATED, policy.methodFor(TEXT));
+    }
+
+    @Test
+    void smallAndAlreadyCompressedEntriesAreStored() throws IOException {
+        CompressionPolicy policy = new CompressionPolicy(CompressionProfile.DEFAULT, 512, Set.of("png", "zip"));
+
+        assertEquals(ZipEntry.STORED, policy.methodFor(BundleEntry.ofBytes("tiny.yaml", new byte[511])));
+        assertEquals(ZipEntry.DEFLATED, policy.methodFor(BundleEntry.ofBytes("exact.yaml", new byte[512])));
+        assertEquals(ZipEntry.STORED, policy.methodFor(BundleEntry.ofBytes("logo.PNG", new byte[1024])));
+        assertEquals(ZipEntry.STORED, policy.methodFor(BundleEntry.ofBytes("nested.zip", new byte[1024])));
+        assertEquals(ZipEntry.DEFLATED, policy.methodFor(BundleEntry.ofBytes("png", new byte[1024])));
+    }
+
+    @Test
+    void fileThatWouldBeStoredIsDeflatedWithoutCompression() throws IOException {
+        CompressionPolicy policy = new CompressionPolicy(CompressionProfile.SMALL, 512, Set.of("png"));
+        Path logo = Files.write(directory.resolve("logo.png"), new byte[1024]);
+        BundleEntry file = BundleEntry.ofFile("logo.png", logo);
+
+        assertEquals(ZipEntry.DEFLATED, policy.methodFor(file));
+        assertEquals(Deflater.NO_COMPRESSION, policy.levelFor(file));
+        assertEquals(Deflater.BEST_COMPRESSION, policy.levelFor(TEXT));
+    }
+
+    @Test
+    void storeProfileStoresEverything() throws IOException {
+        CompressionPolicy policy = new CompressionPolicy(CompressionProfile.STORE, 0, Set.of());
+
+        assertEquals(ZipEntry.STORED, policy.methodFor(TEXT));
+    }
+}
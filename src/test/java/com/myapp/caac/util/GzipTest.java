@@ -0,0 +1,55 @@
+package com.myapp.caac.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GzipTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compressedBytesRoundTrip() throws IOException {
+        byte[] content = "tenant:\n  name: example\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = Gzip.compress(content);
+
+        assertTrue(compressed.length < content.length);
+        assertArrayEquals(content, decompress(new ByteArrayInputStream(compressed)));
+    }
+
+    @Test
+    void compressedFileRoundTripsAndLeavesNoTemporaryFile() throws IOException {
+        byte[] content = "api:\n  - path: /v1\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Path source = Files.write(directory.resolve("api.yaml"), content);
+        Path target = directory.resolve("api.yaml.gz");
+
+        Gzip.compress(source, target);
+
+        try (InputStream in = Files.newInputStream(target)) {
+            assertArrayEquals(content, decompress(in));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private static byte[] decompress(InputStream in) throws IOException {
+        try (InputStream gzip = new GZIPInputStream(in)) {
+            return gzip.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.myapp.caac.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntryBeyondMaxEntries() {
+        LruCache<String, String> cache = new LruCache<>(2, Long.MAX_VALUE, value -> 1);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void evictsUntilWithinMaxWeight() {
+        LruCache<String, String> cache = new LruCache<>(10, 5, String::length);
+        cache.put("a", "abc");
+        cache.put("b", "de");
+        cache.put("c", "fgh");
+
+        assertNull(cache.get("a"));
+        assertEquals(5, cache.weight());
+    }
+
+    @Test
+    void rejectsValueHeavierThanMaxWeight() {
+        LruCache<String, String> cache = new LruCache<>(10, 2, String::length);
+
+        assertFalse(cache.put("a", "abc"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void listenerSeesEvictedAndReplacedValuesOutsideTheLock() {
+        List<String> removed = new ArrayList<>();
+        List<Boolean> heldLock = new ArrayList<>();
+        AtomicReference<LruCache<String, String>> holder = new AtomicReference<>();
+        LruCache<String, String> cache = new LruCache<>(1, Long.MAX_VALUE, value -> 1, (key, value) -> {
+            removed.add(key + "=" + value);
+            heldLock.add(Thread.holdsLock(holder.get()));
+        });
+        holder.set(cache);
+
+        cache.put("a", "1");
+        cache.put("a", "2");
+        cache.put("b", "3");
+
+        assertEquals(List.of("a=1", "a=2"), removed);
+        assertFalse(heldLock.contains(true));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void reportsHitRatio() {
+        LruCache<String, String> cache = new LruCache<>(10, Long.MAX_VALUE, value -> 1);
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(0.5, cache.hitRatio());
+        assertTrue(cache.stats().containsKey("evictions"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.myapp.caac.util;
+
+import com.myapp.caac.enums.CompressionProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelZipWriterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final ParallelZipWriter writer = new ParallelZipWriter(executor, 2, 1 << 20);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void zipFileReadsBackStoredDeflatedAndEmptyEntries() throws IOException {
+        Map<String, byte[]> contents = contents();
+        List<BundleEntry> entries = entries(contents);
+        List<String> written = new ArrayList<>();
+
+        Path zip = write(entries, policy(CompressionProfile.DEFAULT, 16), (entry, size, sha256) -> {
+            assertEquals(contents.get(entry.getName()).length, size);
+            assertEquals(ContentHash.sha256Hex(contents.get(entry.getName())), sha256);
+            written.add(entry.getName());
+        }, () -> BundleEntry.ofBytes("manifest.json", "{}".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.copyOf(contents.keySet()), written);
+        try (ZipFile zipFile = new ZipFile(zip.toFile(), StandardCharsets.UTF_8)) {
+            assertEquals(contents.size() + 1, zipFile.size());
+            for (Map.Entry<String, byte[]> expected : contents.entrySet()) {
+                ZipEntry entry = zipFile.getEntry(expected.getKey());
+                assertEquals(expected.getValue().length, entry.getSize(), expected.getKey());
+                assertEquals(crc(expected.getValue()), entry.getCrc(), expected.getKey());
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    assertArrayEquals(expected.getValue(), in.readAllBytes(), expected.getKey());
+                }
+            }
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("empty.yaml").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("image.png").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("tenant.yaml").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("from-file.json").getMethod());
+            assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8),
+                    zipFile.getInputStream(zipFile.getEntry("manifest.json")).readAllBytes());
+        }
+    }
+
+    @Test
+    void zipInputStreamReadsEntriesInOrder() throws IOException {
+        Map<String, byte[]> contents = contents();
+        Path zip = write(entries(contents), policy(CompressionProfile.FAST, 16), BundleProgressListener.NONE, null);
+
+        Map<String, byte[]> read = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(Files.readAllBytes(zip)))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                read.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        assertEquals(List.copyOf(contents.keySet()), List.copyOf(read.keySet()));
+        contents.forEach((name, content) -> assertArrayEquals(content, read.get(name), name));
+    }
+
+    @Test
+    void emptyEntryCanBeDeflated() throws IOException {
+        List<BundleEntry> entries = List.of(BundleEntry.ofBytes("empty.yaml", new byte[0]),
+                BundleEntry.ofBytes("other.yaml", "a: 1".getBytes(StandardCharsets.UTF_8)));
+
+        Path zip = write(entries, policy(CompressionProfile.SMALL, 0), BundleProgressListener.NONE, null);
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            ZipEntry empty = zipFile.getEntry("empty.yaml");
+            assertEquals(ZipEntry.DEFLATED, empty.getMethod());
+            assertEquals(0, empty.getSize());
+            assertEquals(0, zipFile.getInputStream(empty).readAllBytes().length);
+        }
+    }
+
+    // Files are read only once, so they are deflated at level 0 rather than stored behind a checksum pass
+    @Test
+    void storeProfileLeavesEveryEntryUncompressed() throws IOException {
+        Path zip = write(entries(contents()), policy(CompressionProfile.STORE, 0), BundleProgressListener.NONE, null);
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile(), StandardCharsets.UTF_8)) {
+            zipFile.stream().forEach(entry -> {
+                assertEquals("from-file.json".equals(entry.getName()) ? ZipEntry.DEFLATED : ZipEntry.STORED,
+                        entry.getMethod(), entry.getName());
+                assertTrue(entry.getCompressedSize() >= entry.getSize(), entry.getName());
+            });
+        }
+    }
+
+    // However wide the window, entries are only compressed ahead while their source bytes fit the budget
+    @Test
+    void entriesInFlightStayWithinTheByteBudget() throws IOException {
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ParallelZipWriter budgeted = new ParallelZipWriter(task -> {
+            maxInFlight.accumulateAndGet(submitted.incrementAndGet() - written.get(), Math::max);
+            executor.execute(task);
+        }, 8, 10_000);
+        List<BundleEntry> entries = IntStream.range(0, 10)
+                .mapToObj(i -> BundleEntry.ofBytes("entry" + i + ".yaml", new byte[4_000]))
+                .toList();
+
+        Path zip = directory.resolve("budgeted.zip");
+        try (var out = Files.newOutputStream(zip)) {
+            budgeted.write(entries, policy(CompressionProfile.DEFAULT, 0), out,
+                    (entry, size, sha256) -> written.incrementAndGet(), null);
+        }
+
+        assertEquals(2, maxInFlight.get());
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertEquals(entries.size(), zipFile.size());
+        }
+    }
+
+    private Path write(List<BundleEntry> entries, CompressionPolicy policy, BundleProgressListener listener,
+                       ParallelZipWriter.Trailer trailer) throws IOException {
+        Path zip = directory.resolve("bundle.zip");
+        try (var out = Files.newOutputStream(zip)) {
+            writer.write(entries, policy, out, listener, trailer);
+        }
+        return zip;
+    }
+
+    private Map<String, byte[]> contents() throws IOException {
+        byte[] text = "tenant:\n  name: example\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+        byte[] random = new byte[10_000];
+        new Random(42).nextBytes(random);
+        Path file = directory.resolve("source.json");
+        Files.writeString(file, "{\"api\": [1, 2, 3]}".repeat(100), StandardCharsets.UTF_8);
+
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("tenant.yaml", text);
+        contents.put("empty.yaml", new byte[0]);
+        contents.put("image.png", random);
+        contents.put("tiny.yaml", "a: 1".getBytes(StandardCharsets.UTF_8));
+        contents.put("n\u00e4me.yaml", "b: 2\n".repeat(10).getBytes(StandardCharsets.UTF_8));
+        contents.put("from-file.json", Files.readAllBytes(file));
+        return contents;
+    }
+
+    private List<BundleEntry> entries(Map<String, byte[]> contents) {
+        List<BundleEntry> entries = new ArrayList<>();
+        contents.forEach((name, content) -> entries.add("from-file.json".equals(name)
+                ? BundleEntry.ofFile(name, directory.resolve("source.json"))
+                : BundleEntry.ofBytes(name, content)));
+        return entries;
+    }
+
+    private static CompressionPolicy policy(CompressionProfile profile, long storeBelowBytes) {
+        return new CompressionPolicy(profile, storeBelowBytes, Set.of("png"));
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,130 @@
+package com.myapp.caac.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.model.BundleManifest;
+import com.myapp.caac.model.ManifestEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ZipFileCreatorTest {
+
+    private static final List<BundleEntry> ENTRIES = List.of(
+            BundleEntry.ofBytes("tenant.yaml", "tenant:\n  name: example\n".repeat(100).getBytes(StandardCharsets.UTF_8)),
+            BundleEntry.ofBytes("api.json", "{\"api\": [1, 2, 3]}".repeat(100).getBytes(StandardCharsets.UTF_8)));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ZipFileCreator sequential = new ZipFileCreator(objectMapper, 2, Long.MAX_VALUE, 1 << 20, 0, new String[0]);
+    private final ZipFileCreator parallel = new ZipFileCreator(objectMapper, 2, 0, 1 << 20, 0, new String[0]);
+
+    @AfterEach
+    void close() {
+        sequential.close();
+        parallel.close();
+    }
+
+    // The bundle goes straight into the caller's stream, which is left open for the caller to close
+    @Test
+    void bundleIsStreamedIntoTheCallersStream() throws IOException {
+        for (ZipFileCreator creator : List.of(sequential, parallel)) {
+            TrackingOutputStream out = new TrackingOutputStream();
+
+            creator.writeZip(ENTRIES, creator.policy("default"), out);
+
+            assertFalse(out.closed);
+            Map<String, byte[]> read = unzip(out.toByteArray());
+            for (BundleEntry entry : ENTRIES) {
+                assertArrayEquals(entry.getContent(), read.get(entry.getName()), entry.getName());
+            }
+        }
+    }
+
+    @Test
+    void sequentialAndParallelBundlesHoldTheSameEntriesInOrder() throws IOException {
+        ByteArrayOutputStream sequentialOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallelOut = new ByteArrayOutputStream();
+
+        sequential.writeZip(ENTRIES, sequential.policy("fast"), sequentialOut);
+        parallel.writeZip(ENTRIES, parallel.policy("fast"), parallelOut);
+
+        Map<String, byte[]> expected = unzip(sequentialOut.toByteArray());
+        Map<String, byte[]> actual = unzip(parallelOut.toByteArray());
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()));
+        expected.forEach((name, content) -> assertArrayEquals(content, actual.get(name), name));
+    }
+
+    @Test
+    void requestedProfileAndConfiguredExtensionsDecideEachEntry() throws IOException {
+        ZipFileCreator creator = new ZipFileCreator(objectMapper, 1, Long.MAX_VALUE, 1 << 20, 0, new String[]{" PNG ", ""});
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<BundleEntry> entries = List.of(ENTRIES.get(0), BundleEntry.ofBytes("logo.png", new byte[1024]));
+
+            creator.writeZip(entries, creator.policy("Small"), out);
+
+            try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                assertEquals(ZipEntry.DEFLATED, in.getNextEntry().getMethod());
+                assertEquals(ZipEntry.STORED, in.getNextEntry().getMethod());
+            }
+        } finally {
+            creator.close();
+        }
+    }
+
+    // manifest.json comes last and lists every other entry in bundle order with its size and SHA-256
+    @Test
+    void manifestListsEveryEntryWithSizeAndHash() throws IOException {
+        for (ZipFileCreator creator : List.of(sequential, parallel)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<ManifestEntry> reported = new ArrayList<>();
+
+            creator.writeZip(ENTRIES, creator.policy("default"), out,
+                    (entry, size, sha256) -> reported.add(new ManifestEntry(entry.getName(), size, sha256)));
+
+            Map<String, byte[]> read = unzip(out.toByteArray());
+            assertEquals(BundleManifest.FILE_NAME, List.copyOf(read.keySet()).get(read.size() - 1));
+            BundleManifest manifest = objectMapper.readValue(read.get(BundleManifest.FILE_NAME), BundleManifest.class);
+            assertEquals("SHA-256", manifest.getAlgorithm());
+            List<ManifestEntry> expected = new ArrayList<>();
+            for (BundleEntry entry : ENTRIES) {
+                expected.add(new ManifestEntry(entry.getName(), entry.getContent().length, ContentHash.sha256Hex(entry.getContent())));
+            }
+            assertEquals(expected, manifest.getEntries());
+            assertEquals(expected, reported);
+        }
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> read = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                read.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return read;
+    }
+
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.myapp.caac.validations.content;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Streaming validators against the tree-building checks they replaced, on a ~2 MB configuration
+@Tag("benchmark")
+class ContentValidatorBenchmark {
+
+    private static final int ENTRIES = 20_000;
+    private static final int WARMUPS = 5;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    void json() throws Exception {
+        byte[] content = json(ENTRIES);
+        JsonContentValidator validator = new JsonContentValidator();
+        ObjectMapper objectMapper = new ObjectMapper();
+        System.out.printf("JSON, %d bytes%n", content.length);
+
+        BenchmarkSupport.measure("baseline ObjectMapper.readTree", WARMUPS, ITERATIONS,
+                () -> assertNotNull(objectMapper.readTree(content)));
+        BenchmarkSupport.measure("JsonContentValidator, InputStream", WARMUPS, ITERATIONS,
+                () -> assertTrue(validator.isValid(new ByteArrayInputStream(content))));
+    }
+
+    @Test
+    void yaml() throws Exception {
+        byte[] content = yaml(ENTRIES);
+        String text = new String(content, StandardCharsets.UTF_8);
+        YamlContentValidator validator = new YamlContentValidator();
+        System.out.printf("YAML, %d bytes%n", content.length);
+
+        BenchmarkSupport.measure("baseline Yaml.load", WARMUPS, ITERATIONS,
+                () -> assertNotNull(new Yaml().load(text)));
+        BenchmarkSupport.measure("YamlContentValidator, String", WARMUPS, ITERATIONS,
+                () -> assertTrue(validator.isValid(text)));
+        BenchmarkSupport.measure("YamlContentValidator, InputStream", WARMUPS, ITERATIONS,
+                () -> assertTrue(validator.isValid(new ByteArrayInputStream(content))));
+    }
+
+    private static byte[] json(int entries) {
+        StringBuilder json = new StringBuilder("{\"tenants\": [");
+        for (int i = 0; i < entries; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\": ").append(i)
+                    .append(", \"name\": \"tenant-").append(i)
+                    .append("\", \"enabled\": ").append(i % 2 == 0)
+                    .append(", \"quota\": ").append(i * 1.5)
+                    .append(", \"tags\": [\"a\", \"b\"]}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] yaml(int entries) {
+        StringBuilder yaml = new StringBuilder("tenants:\n");
+        for (int i = 0; i < entries; i++) {
+            yaml.append("  - id: ").append(i)
+                    .append("\n    name: tenant-").append(i)
+                    .append("\n    enabled: ").append(i % 2 == 0)
+                    .append("\n    quota: ").append(i * 1.5)
+                    .append("\n    tags: [a, b]\n");
+        }
+        return yaml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
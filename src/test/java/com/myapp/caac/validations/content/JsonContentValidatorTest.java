@@ -0,0 +1,66 @@
+package com.myapp.caac.validations.content;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Differential checks against ObjectMapper.readTree, which the streaming check replaced
+class JsonContentValidatorTest {
+
+    private static final List<String> AGREES_WITH_READ_TREE = List.of(
+            "{}",
+            "[]",
+            "{\"a\": [1, {\"b\": null}]}",
+            "1",
+            "\"text\"",
+            "null",
+            "true",
+            // Like readTree, only the first root value is checked
+            "{} trailing",
+            "{",
+            "{\"a\": }",
+            "[1, 2",
+            "{\"a\": 1,}",
+            "{'a': 1}",
+            "// comment\n{}",
+            "NaN");
+
+    private final JsonContentValidator validator = new JsonContentValidator();
+
+    @Test
+    void agreesWithReadTree() {
+        for (String content : AGREES_WITH_READ_TREE) {
+            assertEquals(readsTree(content), validator.isValid(content), content);
+            assertEquals(readsTree(content), validator.isValid(stream(content)), content);
+        }
+    }
+
+    // readTree returns a MissingNode for empty content; a configuration without any value is rejected instead
+    @Test
+    void rejectsEmptyContent() {
+        assertTrue(readsTree("  "));
+        assertFalse(validator.isValid(""));
+        assertFalse(validator.isValid("  "));
+        assertFalse(validator.isValid(stream("")));
+    }
+
+    private static boolean readsTree(String content) {
+        try {
+            new ObjectMapper().readTree(content);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
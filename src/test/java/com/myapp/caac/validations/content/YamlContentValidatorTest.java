@@ -0,0 +1,167 @@
+package com.myapp.caac.validations.content;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.validations.schema.CompiledSchema;
+import com.myapp.caac.validations.schema.SchemaCompiler;
+import com.myapp.caac.validations.schema.SchemaValidator;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Differential checks against Yaml.load, so a SnakeYAML upgrade that moves either side shows up here
+class YamlContentValidatorTest {
+
+    private static final List<String> AGREES_WITH_YAML_LOAD = List.of(
+            "a: 1",
+            "a: {b: {c: [1, 2, {d: e}]}}",
+            "- 1\n- two\n- 3.0",
+            "plain scalar",
+            "---\na: 1\n...\n",
+            "%YAML 1.1\n---\na: 1",
+            "- &x 1\n- *x",
+            "<<: {a: 1}\nb: 2",
+            "a: 1\na: 2",
+            "a: !!int 12",
+            "a: !!str 1",
+            "a: !!int foo",
+            "- !!int 0o17",
+            "a: !!float x",
+            "a: !!float 1",
+            "a: !!float 0x1F",
+            "t: !!timestamp bad",
+            "t: !!timestamp 2001-12-14",
+            "a: !!binary '%%%'",
+            "a: !!binary aGVsbG8=",
+            "a: !!bool maybe",
+            "a: !custom x",
+            "a: !custom {b: 1}",
+            "a: ! 12",
+            "a: !!map [1]",
+            "a: !!seq {b: 1}",
+            "a: !!set {b, c}",
+            "x: 0x1F",
+            "",
+            "# only a comment",
+            "~",
+            "null",
+            "!!null ''",
+            "a: 1\n---\nb: 2",
+            "- *undefined",
+            "*undefined",
+            "a: [1, 2",
+            "a: 'unterminated",
+            "a:\n  - b\n - c");
+
+    // Only tagged scalars are constructed, so these are accepted although Yaml.load rejects them
+    private static final List<String> ONLY_FAIL_DURING_CONSTRUCTION = List.of(
+            "<<: 5",
+            "&k {? *k : 1}",
+            "a: !!omap [1]");
+
+    private static final String SCHEMA = """
+            {"type": "object", "required": ["name", "port"], "additionalProperties": false,
+             "properties": {"name": {"type": "string"},
+                            "port": {"type": "integer"},
+                            "tags": {"type": "array", "items": {"type": "string"}},
+                            "base": {"type": "object"},
+                            "limits": {"type": "object", "required": ["cpu"],
+                                       "properties": {"cpu": {"type": "number"}}}}}""";
+
+    private static final List<String> SCHEMA_AGREES_WITH_YAML_LOAD = List.of(
+            "name: a\nport: 1",
+            "name: 1\nport: 1",
+            "name: a\nport: x",
+            "name: a",
+            "name: a\nport: 1\nother: 1",
+            "name: a\nport: 1\ntags: [x, y]",
+            "name: a\nport: 1\ntags: [x, 1]",
+            "name: a\nport: 1\nlimits: {cpu: 1.5}",
+            "name: a\nport: 1\nlimits: {}",
+            "port: &p 1\nname: a",
+            "'<<': {name: a, port: 1}",
+            "[name, port]");
+
+    private final YamlContentValidator validator = new YamlContentValidator();
+    private final CompiledSchema schema;
+
+    YamlContentValidatorTest() throws IOException {
+        this.schema = new SchemaCompiler().compile(new ObjectMapper().readTree(SCHEMA));
+    }
+
+    @Test
+    void agreesWithYamlLoad() {
+        for (String content : AGREES_WITH_YAML_LOAD) {
+            assertEquals(loads(content), validator.isValid(content), content);
+            assertEquals(loads(content), validator.isValid(stream(content)), content);
+        }
+    }
+
+    @Test
+    void acceptsContentThatOnlyFailsDuringConstruction() {
+        for (String content : ONLY_FAIL_DURING_CONSTRUCTION) {
+            assertFalse(loads(content), content);
+            assertTrue(validator.isValid(content), content);
+        }
+    }
+
+    @Test
+    void schemaAgreesWithLoadedDocument() {
+        for (String content : SCHEMA_AGREES_WITH_YAML_LOAD) {
+            boolean expected = loadedMatchesSchema(content);
+            assertEquals(expected, validator.isValid(content, new SchemaValidator(schema)), content);
+            assertEquals(expected, validator.isValid(stream(content), new SchemaValidator(schema)), content);
+        }
+    }
+
+    // Aliases are not expanded, so whatever they name passes the schema
+    @Test
+    void aliasIsAnyValue() {
+        String content = "limits: &l {cpu: 1}\nname: a\nport: 1\ntags: [*l]";
+
+        assertFalse(loadedMatchesSchema(content));
+        assertTrue(validator.isValid(content, new SchemaValidator(schema)));
+        assertTrue(validator.isValid("&a [1, *a]", new SchemaValidator(CompiledSchema.ANY)));
+    }
+
+    // Merge keys are not flattened, so a schema sees a field named <<
+    @Test
+    void mergeKeyIsAField() {
+        String content = "<<: {name: a, port: 1}";
+
+        assertTrue(loadedMatchesSchema(content));
+        assertFalse(validator.isValid(content, new SchemaValidator(schema)));
+        assertTrue(validator.isValid(content, new SchemaValidator(CompiledSchema.ANY)));
+    }
+
+    // The schema verdict on the document Yaml.load builds, checked through the JSON validator
+    private boolean loadedMatchesSchema(String content) {
+        String json;
+        try {
+            json = new ObjectMapper().writeValueAsString(new Yaml().load(content));
+        } catch (Exception e) {
+            return false;
+        }
+        return new JsonContentValidator().isValid(json, new SchemaValidator(schema));
+    }
+
+    // What Yaml.load accepts: exactly one document that does not construct to null
+    private static boolean loads(String content) {
+        try {
+            return new Yaml().load(content) != null;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.myapp.caac.validations.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaCompilerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SchemaCompiler compiler = new SchemaCompiler();
+
+    @Test
+    void compilesSupportedSubset() throws IOException {
+        CompiledSchema schema = compile("""
+                {"$schema": "https://json-schema.org/draft/2020-12/schema", "title": "tenant",
+                 "type": "object", "required": ["name"], "additionalProperties": false,
+                 "properties": {"name": {"type": "string", "description": "display name"},
+                                "ports": {"type": "array", "items": {"type": "integer"}}}}""");
+
+        assertTrue(schema.allows(JsonType.OBJECT));
+        assertFalse(schema.allows(JsonType.ARRAY));
+        assertEquals(List.of("name"), schema.getRequired());
+        assertTrue(schema.property("name").allows(JsonType.STRING));
+        assertTrue(schema.property("ports").items().allows(JsonType.INTEGER));
+        assertFalse(schema.property("ports").items().allows(JsonType.NUMBER));
+        assertNull(schema.property("other"));
+    }
+
+    @Test
+    void integerIsANumber() throws IOException {
+        CompiledSchema schema = compile("{\"type\": [\"number\", \"null\"]}");
+
+        assertTrue(schema.allows(JsonType.INTEGER));
+        assertTrue(schema.allows(JsonType.NUMBER));
+        assertTrue(schema.allows(JsonType.NULL));
+        assertFalse(schema.allows(JsonType.STRING));
+    }
+
+    @Test
+    void additionalPropertiesDefaultToAllowed() throws IOException {
+        assertSame(CompiledSchema.ANY, compile("{\"properties\": {}}").property("anything"));
+        assertSame(CompiledSchema.ANY, compile("{\"additionalProperties\": true}").property("anything"));
+    }
+
+    @Test
+    void rejectsSchemaForAdditionalProperties() {
+        assertThrows(IllegalArgumentException.class,
+                () -> compile("{\"additionalProperties\": {\"type\": \"string\"}}"));
+    }
+
+    @Test
+    void rejectsUnsupportedKeywords() {
+        for (String keyword : List.of("$ref", "enum", "minLength", "pattern", "oneOf", "patternProperties")) {
+            assertThrows(IllegalArgumentException.class, () -> compile("{\"" + keyword + "\": 1}"), keyword);
+            assertThrows(IllegalArgumentException.class,
+                    () -> compile("{\"properties\": {\"a\": {\"" + keyword + "\": 1}}}"), keyword);
+        }
+    }
+
+    @Test
+    void rejectsMalformedKeywords() {
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"type\": \"text\"}"));
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"type\": [1]}"));
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"required\": \"name\"}"));
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"properties\": []}"));
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"items\": [{\"type\": \"string\"}]}"));
+        assertThrows(IllegalArgumentException.class, () -> compile("true"));
+    }
+
+    @Test
+    void shippedSchemasCompile() throws IOException {
+        for (String id : List.of("api", "product", "productfamily", "tenant")) {
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream("schema/" + id + ".schema.json")) {
+                assertNotNull(in, id);
+                assertNotNull(compiler.compile(objectMapper.readTree(in)), id);
+            }
+        }
+    }
+
+    private CompiledSchema compile(String schema) throws IOException {
+        JsonNode node = objectMapper.readTree(schema);
+        return compiler.compile(node);
+    }
+}
@@ -0,0 +1,65 @@
+package com.myapp.caac.validations.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.caac.validations.content.JsonContentValidator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaValidatorTest {
+
+    private static final String SCHEMA = """
+            {"type": "object", "required": ["name", "port"], "additionalProperties": false,
+             "properties": {"name": {"type": "string"},
+                            "port": {"type": "integer"},
+                            "tags": {"type": "array", "items": {"type": "string"}},
+                            "limits": {"type": "object", "required": ["cpu"],
+                                       "properties": {"cpu": {"type": "number"}}}}}""";
+
+    private final JsonContentValidator content = new JsonContentValidator();
+    private final CompiledSchema schema;
+
+    SchemaValidatorTest() throws IOException {
+        this.schema = new SchemaCompiler().compile(new ObjectMapper().readTree(SCHEMA));
+    }
+
+    @Test
+    void acceptsMatchingDocument() {
+        assertTrue(validate("{\"name\": \"a\", \"port\": 1}"));
+        assertTrue(validate("{\"port\": 1, \"name\": \"a\", \"tags\": [], \"limits\": {\"cpu\": 1.5, \"mem\": 2}}"));
+    }
+
+    @Test
+    void rejectsWrongTypes() {
+        assertFalse(validate("{\"name\": 1, \"port\": 1}"));
+        assertFalse(validate("{\"name\": \"a\", \"port\": 1.5}"));
+        assertFalse(validate("{\"name\": \"a\", \"port\": 1, \"tags\": [\"x\", 2]}"));
+        assertFalse(validate("{\"name\": \"a\", \"port\": 1, \"limits\": {\"cpu\": \"x\"}}"));
+        assertFalse(validate("[{\"name\": \"a\", \"port\": 1}]"));
+        assertFalse(validate("\"scalar root\""));
+    }
+
+    @Test
+    void rejectsMissingRequiredProperties() {
+        assertFalse(validate("{\"name\": \"a\"}"));
+        assertFalse(validate("{\"name\": \"a\", \"port\": 1, \"limits\": {}}"));
+    }
+
+    @Test
+    void rejectsAdditionalPropertiesWhenClosed() {
+        assertFalse(validate("{\"name\": \"a\", \"port\": 1, \"other\": true}"));
+    }
+
+    @Test
+    void requiredIsCheckedPerObject() {
+        // A cpu nested one level deeper does not satisfy limits
+        assertFalse(validate("{\"name\": \"a\", \"port\": 1, \"limits\": {\"mem\": {\"cpu\": 1}}}"));
+    }
+
+    private boolean validate(String json) {
+        return content.isValid(json, new SchemaValidator(schema));
+    }
+}